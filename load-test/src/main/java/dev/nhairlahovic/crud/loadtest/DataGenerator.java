@@ -0,0 +1,81 @@
+package dev.nhairlahovic.crud.loadtest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the sample tables with generated rows through plain JDBC batches, which is much faster
+ * than going through JPA at the larger scales. Rows are generated from a fixed seed, so every run
+ * with the same configuration works on the same data.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataGenerator {
+
+    static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel",
+            "india", "juliett", "kilo", "lima", "mike", "november", "oscar", "papa"
+    };
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the categories and products described by the properties.
+     *
+     * @param properties the load test configuration
+     * @return the number of generated categories
+     */
+    public int generate(LoadTestProperties properties) {
+        long start = System.nanoTime();
+        int categories = Math.max(1, properties.products() / properties.productsPerCategory());
+        var random = new SplittableRandom(42);
+
+        insert("INSERT INTO category (id, name) VALUES (?, ?)", categories,
+                id -> new Object[]{id, "Category " + id});
+        insert("INSERT INTO product (id, name, sku, price, category_id) VALUES (?, ?, ?, ?, ?)", properties.products(),
+                id -> new Object[]{
+                        id,
+                        WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id,
+                        "SKU-" + id,
+                        BigDecimal.valueOf(random.nextInt(100, 100_000), 2),
+                        1 + (id - 1) % categories
+                });
+
+        // Rows were inserted with explicit ids, move the identity columns past them
+        jdbcTemplate.execute("ALTER TABLE category ALTER COLUMN id RESTART WITH " + (categories + 1));
+        jdbcTemplate.execute("ALTER TABLE product ALTER COLUMN id RESTART WITH " + (properties.products() + 1));
+
+        log.info("Generated {} products in {} categories in {} ms", properties.products(), categories,
+                (System.nanoTime() - start) / 1_000_000);
+        return categories;
+    }
+
+    private void insert(String sql, int rows, RowFactory rowFactory) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= rows; id++) {
+            batch.add(rowFactory.create(id));
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowFactory {
+        Object[] create(int id);
+    }
+}
@@ -0,0 +1,18 @@
+package dev.nhairlahovic.crud.loadtest;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+
+/**
+ * Boots a sample CRUD application on an in-memory H2 database, fills it with generated data
+ * and drives a mixed workload against its endpoints. See {@link LoadTestProperties} for the knobs.
+ */
+@SpringBootApplication
+@ConfigurationPropertiesScan
+public class LoadTestApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(LoadTestApplication.class, args);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.nhairlahovic.crud.loadtest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuration of a load test run, bound from {@code loadtest.*}.
+ *
+ * @param products            number of generated products, from 10k up to 10M
+ * @param productsPerCategory number of products per generated category
+ * @param rate                target arrival rate in requests per second
+ * @param warmup              duration of the warm-up phase, whose latencies are discarded
+ * @param duration            duration of the measured phase
+ * @param mix                 relative weight of every operation in the workload
+ * @param accept              media type requested by read operations, to compare JSON with Smile or CBOR
+ * @param output              directory the reports are written to
+ * @param exitWhenDone        whether to stop the application once the run completes
+ */
+@ConfigurationProperties("loadtest")
+public record LoadTestProperties(
+        @DefaultValue("100000") int products,
+        @DefaultValue("100") int productsPerCategory,
+        @DefaultValue("2000") int rate,
+        @DefaultValue("30s") Duration warmup,
+        @DefaultValue("60s") Duration duration,
+        @DefaultValue Map<Operation, Integer> mix,
+        @DefaultValue("application/json") String accept,
+        @DefaultValue("target/load-test") Path output,
+        @DefaultValue("true") boolean exitWhenDone) {
+
+    /**
+     * Returns the weight of the operation, falling back to the default mix when none is configured.
+     */
+    public int weightOf(Operation operation) {
+        if (mix == null || mix.isEmpty()) {
+            return operation.getDefaultWeight();
+        }
+        return mix.getOrDefault(operation, 0);
+    }
+}
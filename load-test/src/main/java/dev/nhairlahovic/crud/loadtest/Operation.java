@@ -0,0 +1,19 @@
+package dev.nhairlahovic.crud.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The requests of the workload, with their weight in the default mix.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum Operation {
+    GET_BY_ID(60),
+    SEARCH_PAGE(15),
+    NESTED_LIST(15),
+    CREATE(5),
+    PATCH(5);
+
+    private final int defaultWeight;
+}
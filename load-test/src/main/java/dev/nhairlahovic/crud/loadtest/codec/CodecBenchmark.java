@@ -0,0 +1,114 @@
+package dev.nhairlahovic.crud.loadtest.codec;
+
+import dev.nhairlahovic.crud.loadtest.sample.ProductDto;
+import dev.nhairlahovic.crud.model.PageDto;
+import org.HdrHistogram.Histogram;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Compares payload size and encode/decode time of JSON, Smile and CBOR for a {@link PageDto} of products,
+ * the shape service-to-service callers pull from {@code CrudController}.
+ * <p>
+ * Run with {@code ../mvnw spring-boot:run -Dspring-boot.run.main-class=dev.nhairlahovic.crud.loadtest.codec.CodecBenchmark
+ * -Dspring-boot.run.arguments="2000 5000"}, where the arguments are the page size and the number of measured iterations.
+ * Results are printed and written to {@code target/load-test/codecs.json}.
+ */
+public class CodecBenchmark {
+
+    private static final TypeReference<PageDto<ProductDto>> PAGE_TYPE = new TypeReference<>() {
+    };
+
+    public static void main(String[] args) throws IOException {
+        int pageSize = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        PageDto<ProductDto> page = samplePage(pageSize);
+
+        Map<String, ObjectMapper> codecs = new LinkedHashMap<>();
+        codecs.put("json", JsonMapper.builder().build());
+        codecs.put("smile", SmileMapper.builder().build());
+        codecs.put("cbor", CBORMapper.builder().build());
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("pageSize", pageSize);
+        results.put("iterations", iterations);
+
+        System.out.printf("%-6s %12s %14s %14s %14s %14s%n", "codec", "bytes", "encode p50 us", "encode p99 us",
+                "decode p50 us", "decode p99 us");
+        for (var codec : codecs.entrySet()) {
+            Map<String, Object> result = measure(codec.getValue(), page, iterations);
+            results.put(codec.getKey(), result);
+            System.out.printf("%-6s %12d %14.1f %14.1f %14.1f %14.1f%n", codec.getKey(), result.get("bytes"),
+                    result.get("encodeP50Us"), result.get("encodeP99Us"), result.get("decodeP50Us"), result.get("decodeP99Us"));
+        }
+
+        Path output = Path.of("target", "load-test");
+        Files.createDirectories(output);
+        codecs.get("json").writerWithDefaultPrettyPrinter().writeValue(output.resolve("codecs.json").toFile(), results);
+    }
+
+    private static Map<String, Object> measure(ObjectMapper mapper, PageDto<ProductDto> page, int iterations) {
+        byte[] encoded = mapper.writeValueAsBytes(page);
+
+        // Let the JIT compile both paths before measuring
+        for (int i = 0; i < Math.max(1000, iterations / 5); i++) {
+            mapper.readValue(mapper.writeValueAsBytes(page), PAGE_TYPE);
+        }
+
+        Histogram encode = new Histogram(3);
+        Histogram decode = new Histogram(3);
+        long sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            byte[] bytes = mapper.writeValueAsBytes(page);
+            long encodedAt = System.nanoTime();
+            PageDto<ProductDto> decoded = mapper.readValue(bytes, PAGE_TYPE);
+            long decodedAt = System.nanoTime();
+
+            encode.recordValue(encodedAt - start);
+            decode.recordValue(decodedAt - encodedAt);
+            sink += decoded.getContent().size();
+        }
+        if (sink != (long) iterations * page.getContent().size()) {
+            throw new IllegalStateException("Decoded pages do not match the encoded page");
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bytes", encoded.length);
+        result.put("encodeP50Us", encode.getValueAtPercentile(50) / 1000.0);
+        result.put("encodeP99Us", encode.getValueAtPercentile(99) / 1000.0);
+        result.put("decodeP50Us", decode.getValueAtPercentile(50) / 1000.0);
+        result.put("decodeP99Us", decode.getValueAtPercentile(99) / 1000.0);
+        return result;
+    }
+
+    private static PageDto<ProductDto> samplePage(int size) {
+        var random = new SplittableRandom(42);
+        List<ProductDto> content = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            content.add(new ProductDto(id, "product " + random.nextInt(1_000_000), "SKU-" + id,
+                    BigDecimal.valueOf(random.nextInt(100, 100_000), 2), 1 + id % 100));
+        }
+
+        PageDto<ProductDto> page = new PageDto<>();
+        page.setContent(content);
+        page.setCurrentPage(1);
+        page.setTotalPages(50);
+        page.setTotalElements(50L * size);
+        page.setLast(false);
+        return page;
+    }
+}
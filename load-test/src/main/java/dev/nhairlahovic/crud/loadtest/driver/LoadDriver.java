@@ -0,0 +1,111 @@
+package dev.nhairlahovic.crud.loadtest.driver;
+
+import dev.nhairlahovic.crud.loadtest.DataGenerator;
+import dev.nhairlahovic.crud.loadtest.LoadTestProperties;
+import dev.nhairlahovic.crud.loadtest.Operation;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the workload against the running application at a fixed arrival rate.
+ * Requests are scheduled at evenly spaced start times regardless of how fast earlier requests complete,
+ * and latency is measured from the scheduled start, so a stalled server shows up in the percentiles
+ * instead of silently lowering the request rate (coordinated omission).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoadDriver implements ApplicationRunner {
+
+    private static final int MAX_IN_FLIGHT = 10_000;
+
+    private final LoadTestProperties properties;
+    private final DataGenerator dataGenerator;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        int categories = dataGenerator.generate(properties);
+        String baseUrl = "http://localhost:" + environment.getRequiredProperty("local.server.port");
+        var workload = new Workload(baseUrl, properties, categories);
+
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).version(HttpClient.Version.HTTP_1_1).build()) {
+            log.info("Warming up for {} at {} requests/s", properties.warmup(), properties.rate());
+            drive(client, executor, workload, stats, properties.warmup().toNanos());
+            stats.values().forEach(OperationStats::reset);
+
+            log.info("Measuring for {} at {} requests/s", properties.duration(), properties.rate());
+            long start = System.nanoTime();
+            long scheduled = drive(client, executor, workload, stats, properties.duration().toNanos());
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            long elapsed = System.nanoTime() - start;
+
+            new ReportWriter(properties).write(stats, scheduled, elapsed);
+        }
+
+        if (properties.exitWhenDone()) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private long drive(HttpClient client, ExecutorService executor, Workload workload,
+                       Map<Operation, OperationStats> stats, long durationNanos) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / properties.rate();
+        var inFlight = new Semaphore(MAX_IN_FLIGHT);
+        long start = System.nanoTime();
+        long count = 0;
+
+        for (long intendedStart = start; intendedStart - start < durationNanos; intendedStart += intervalNanos) {
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            Operation operation = workload.next();
+            OperationStats operationStats = stats.get(operation);
+            count++;
+            if (!inFlight.tryAcquire()) {
+                // The server is so far behind that the driver would run out of memory, count the request as lost
+                operationStats.drop();
+                continue;
+            }
+
+            long scheduledAt = intendedStart;
+            executor.execute(() -> {
+                try {
+                    HttpResponse<Void> response = client.send(workload.request(operation), HttpResponse.BodyHandlers.discarding());
+                    operationStats.record(System.nanoTime() - scheduledAt, response.statusCode() >= 400);
+                } catch (Exception ex) {
+                    operationStats.record(System.nanoTime() - scheduledAt, true);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        return count;
+    }
+}
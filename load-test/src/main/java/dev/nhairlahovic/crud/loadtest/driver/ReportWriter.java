@@ -0,0 +1,119 @@
+package dev.nhairlahovic.crud.loadtest.driver;
+
+import dev.nhairlahovic.crud.loadtest.LoadTestProperties;
+import dev.nhairlahovic.crud.loadtest.Operation;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the results of a run to the output directory:
+ * <ul>
+ *     <li>{@code summary.json} with the configuration, throughput and latency percentiles in milliseconds,</li>
+ *     <li>{@code <operation>.hgrm} percentile distributions, which the HdrHistogram plotter can chart,</li>
+ *     <li>{@code histograms.hlog} with the full histograms in the HdrHistogram log format, for comparing runs.</li>
+ * </ul>
+ */
+@Slf4j
+class ReportWriter {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final String ALL = "ALL";
+
+    private final LoadTestProperties properties;
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    ReportWriter(LoadTestProperties properties) {
+        this.properties = properties;
+    }
+
+    void write(Map<Operation, OperationStats> stats, long scheduled, long elapsedNanos) throws IOException {
+        Path output = properties.output();
+        Files.createDirectories(output);
+
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        Map<String, Map<String, Object>> operations = new LinkedHashMap<>();
+        Histogram all = null;
+        long errors = 0;
+        long dropped = 0;
+
+        for (var entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Histogram histogram = operationStats.histogram();
+            String name = entry.getKey().name();
+            histograms.put(name, histogram);
+            operations.put(name, summarize(histogram, operationStats.errors(), operationStats.dropped()));
+
+            if (all == null) {
+                all = histogram.copy();
+            } else {
+                all.add(histogram);
+            }
+            errors += operationStats.errors();
+            dropped += operationStats.dropped();
+        }
+        histograms.put(ALL, all);
+        operations.put(ALL, summarize(all, errors, dropped));
+
+        for (var entry : histograms.entrySet()) {
+            try (var out = new PrintStream(Files.newOutputStream(output.resolve(entry.getKey().toLowerCase() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+
+        try (var out = new PrintStream(Files.newOutputStream(output.resolve("histograms.hlog")))) {
+            var logWriter = new HistogramLogWriter(out);
+            logWriter.outputLogFormatVersion();
+            logWriter.outputComment("Latencies in microseconds, from the scheduled start of each request");
+            logWriter.outputLegend();
+            for (var entry : histograms.entrySet()) {
+                Histogram histogram = entry.getValue();
+                histogram.setTag(entry.getKey());
+                logWriter.outputIntervalHistogram(histogram);
+            }
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("products", properties.products());
+        summary.put("targetRate", properties.rate());
+        summary.put("achievedRate", all.getTotalCount() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)));
+        summary.put("scheduled", scheduled);
+        summary.put("durationSeconds", properties.duration().toSeconds());
+        summary.put("operations", operations);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.resolve("summary.json").toFile(), summary);
+
+        log.info("Completed {} requests at {} requests/s, p50 {} ms, p99 {} ms, p99.9 {} ms, {} errors; reports in {}",
+                all.getTotalCount(), Math.round((double) summary.get("achievedRate")),
+                millis(all, 50), millis(all, 99), millis(all, 99.9), errors, output.toAbsolutePath());
+    }
+
+    private static Map<String, Object> summarize(Histogram histogram, long errors, long dropped) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("errors", errors);
+        summary.put("dropped", dropped);
+        summary.put("meanMs", histogram.getMean() / MICROS_PER_MILLI);
+        summary.put("p50Ms", millis(histogram, 50));
+        summary.put("p90Ms", millis(histogram, 90));
+        summary.put("p99Ms", millis(histogram, 99));
+        summary.put("p999Ms", millis(histogram, 99.9));
+        summary.put("maxMs", histogram.getMaxValue() / MICROS_PER_MILLI);
+        return summary;
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+}
@@ -0,0 +1,90 @@
+package dev.nhairlahovic.crud.loadtest.driver;
+
+import dev.nhairlahovic.crud.loadtest.LoadTestProperties;
+import dev.nhairlahovic.crud.loadtest.Operation;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the next operation according to the configured mix and builds its request.
+ */
+class Workload {
+
+    private static final String[] SEARCH_TERMS = {"alpha", "echo", "lima", "papa", "kilo bravo", "1234"};
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final String accept;
+    private final int products;
+    private final int categories;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    Workload(String baseUrl, LoadTestProperties properties, int categories) {
+        this.baseUrl = baseUrl;
+        this.accept = properties.accept();
+        this.products = properties.products();
+        this.categories = categories;
+        this.operations = Operation.values();
+        this.cumulativeWeights = new int[operations.length];
+
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += Math.max(0, properties.weightOf(operations[i]));
+            cumulativeWeights[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("The workload mix must give at least one operation a positive weight");
+        }
+    }
+
+    Operation next() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    HttpRequest request(Operation operation) {
+        var random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case GET_BY_ID -> get("/products/" + randomProductId());
+            case SEARCH_PAGE -> get("/products?size=20&sort=name&page=%d&search=%s".formatted(
+                    random.nextInt(10), SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)].replace(" ", "%20")));
+            case NESTED_LIST -> get("/categories/%d/products".formatted(1 + random.nextInt(categories)));
+            case CREATE -> send("POST", "/products", """
+                    {"name":"load %d","sku":"LT-%d","price":%d.99,"categoryId":%d}"""
+                    .formatted(random.nextInt(1_000_000), random.nextLong(Long.MAX_VALUE), random.nextInt(1, 1000),
+                            1 + random.nextInt(categories)));
+            case PATCH -> send("PATCH", "/products/" + randomProductId(), """
+                    {"price":%d.49}""".formatted(random.nextInt(1, 1000)));
+        };
+    }
+
+    private int randomProductId() {
+        return 1 + ThreadLocalRandom.current().nextInt(products);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", accept)
+                .GET()
+                .build();
+    }
+
+    private HttpRequest send(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,14 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.controller.NestedCrudController;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/categories/{parentId}/products")
+public class CategoryProductController extends NestedCrudController<Category, Product, ProductRequest, ProductDto, Long, Long> {
+
+    public CategoryProductController(CategoryProductService categoryProductService, CategoryProductMapper mapper) {
+        super(categoryProductService, mapper);
+    }
+}
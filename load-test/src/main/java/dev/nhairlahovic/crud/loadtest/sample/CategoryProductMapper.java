@@ -0,0 +1,25 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.mapper.NestedResourceMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class CategoryProductMapper implements NestedResourceMapper<Product, ProductRequest, ProductDto, Long, Long> {
+
+    private final CategoryRepository categoryRepository;
+    private final ProductMapper productMapper;
+
+    @Override
+    public Product mapToEntity(Long parentId, ProductRequest request) {
+        Product product = productMapper.mapToEntity(request);
+        product.setCategory(categoryRepository.getReferenceById(parentId));
+        return product;
+    }
+
+    @Override
+    public ProductDto mapToDto(Product entity) {
+        return productMapper.mapToDto(entity);
+    }
+}
@@ -0,0 +1,43 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class CategoryProductService extends NestedCrudService<Category, Product, Long, Long> {
+
+    private final ProductRepository productRepository;
+
+    public CategoryProductService(ProductRepository productRepository, CategoryRepository categoryRepository) {
+        super(productRepository, categoryRepository);
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public String getResourceType() {
+        return "Product";
+    }
+
+    @Override
+    public String getParentResourceType() {
+        return "Category";
+    }
+
+    @Override
+    protected String getParentAttribute() {
+        return "category";
+    }
+
+    @Override
+    protected List<Product> findByParent(Category parent) {
+        return productRepository.findByCategory(parent);
+    }
+
+    @Override
+    protected Optional<Product> findByIdAndParent(Long id, Category parent) {
+        return productRepository.findByIdAndCategory(id, parent);
+    }
+}
@@ -0,0 +1,6 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.repository.JpaFilterRepository;
+
+public interface CategoryRepository extends JpaFilterRepository<Category, Long> {
+}
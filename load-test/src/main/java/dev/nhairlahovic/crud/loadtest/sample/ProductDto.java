@@ -0,0 +1,6 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import java.math.BigDecimal;
+
+public record ProductDto(Long id, String name, String sku, BigDecimal price, Long categoryId) {
+}
@@ -0,0 +1,30 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.mapper.ResourceMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ProductMapper implements ResourceMapper<Product, ProductRequest, ProductDto, Long> {
+
+    private final CategoryRepository categoryRepository;
+
+    @Override
+    public ProductDto mapToDto(Product entity) {
+        return new ProductDto(entity.getId(), entity.getName(), entity.getSku(), entity.getPrice(),
+                entity.getCategory().getId());
+    }
+
+    @Override
+    public Product mapToEntity(ProductRequest request) {
+        Product product = new Product();
+        product.setName(request.name());
+        product.setSku(request.sku());
+        product.setPrice(request.price());
+        if (request.categoryId() != null) {
+            product.setCategory(categoryRepository.getReferenceById(request.categoryId()));
+        }
+        return product;
+    }
+}
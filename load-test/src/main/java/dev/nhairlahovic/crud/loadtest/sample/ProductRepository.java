@@ -0,0 +1,13 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.repository.JpaFilterRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ProductRepository extends JpaFilterRepository<Product, Long> {
+
+    List<Product> findByCategory(Category category);
+
+    Optional<Product> findByIdAndCategory(Long id, Category category);
+}
@@ -0,0 +1,15 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.annotation.Patchable;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+public record ProductRequest(
+        @Patchable @NotBlank String name,
+        @NotBlank String sku,
+        @Patchable @NotNull @Positive BigDecimal price,
+        Long categoryId) {
+}
@@ -0,0 +1,32 @@
+package dev.nhairlahovic.crud.loadtest.sample;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.service.CrudService;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class ProductService extends CrudService<Product, Long> {
+
+    public ProductService(ProductRepository repository) {
+        super(repository);
+    }
+
+    @Override
+    public String getResourceType() {
+        return "Product";
+    }
+
+    @Override
+    public Optional<FilterCriteria> getFilterCriteria() {
+        return Optional.of(new FilterCriteria("name", FilterOperation.LIKE));
+    }
+
+    @Override
+    public Set<String> getAllowedSortFields() {
+        return Set.of("name");
+    }
+}
@@ -0,0 +1,110 @@
+package dev.nhairlahovic.crud.aot;
+
+import dev.nhairlahovic.crud.annotation.Patchable;
+import dev.nhairlahovic.crud.controller.CrudController;
+import dev.nhairlahovic.crud.controller.NestedBatchController;
+import dev.nhairlahovic.crud.controller.NestedCompositeKeyCrudController;
+import dev.nhairlahovic.crud.controller.NestedCrudController;
+import dev.nhairlahovic.crud.mapper.CompositeKeyResourceMapper;
+import dev.nhairlahovic.crud.mapper.NestedResourceMapper;
+import dev.nhairlahovic.crud.mapper.ResourceMapper;
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.ReflectionHints;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.aot.BeanRegistrationAotProcessor;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Registers the reflection that the generic CRUD controllers, mappers and services need at runtime,
+ * so that they also work in a native image.
+ * For every controller, mapper and service bean, the concrete type arguments are resolved at build time and:
+ * <ul>
+ *     <li>the bean class itself is registered, so its generic superclass and interfaces can be read
+ *     by {@code CrudController.getRequestClass}, {@code ResourceMapper.requestType},
+ *     {@code CrudService.getEntityClass}, {@code NestedCrudService.getEntityClass} and {@code HookOutbox},</li>
+ *     <li>the declared fields of the request DTO are registered for {@link Patchable} scanning,</li>
+ *     <li>the declared fields of the entity, the parent entity and their superclasses are registered for
+ *     {@code ResourceMapper.patchEntity}, {@code AttributeReader} and {@code ChangeDetector},</li>
+ *     <li>the request and response DTOs are registered for JSON binding.</li>
+ * </ul>
+ */
+public class CrudBeanRegistrationAotProcessor implements BeanRegistrationAotProcessor {
+
+    private static final List<GenericComponent> COMPONENTS = List.of(
+            new GenericComponent(CrudController.class, 0, -1, 1, 2),
+            new GenericComponent(NestedCrudController.class, 1, 0, 2, 3),
+            new GenericComponent(NestedCompositeKeyCrudController.class, 1, 0, 2, 3),
+            new GenericComponent(NestedBatchController.class, 1, 0, -1, 2),
+            new GenericComponent(ResourceMapper.class, 0, -1, 1, 2),
+            new GenericComponent(NestedResourceMapper.class, 0, -1, 1, 2),
+            new GenericComponent(CompositeKeyResourceMapper.class, 0, -1, 1, 2),
+            new GenericComponent(CrudService.class, 0, -1, -1, -1),
+            new GenericComponent(NestedCrudService.class, 1, 0, -1, -1)
+    );
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public BeanRegistrationAotContribution processAheadOfTime(RegisteredBean registeredBean) {
+        Class<?> beanClass = ClassUtils.getUserClass(registeredBean.getBeanClass());
+
+        for (GenericComponent component : COMPONENTS) {
+            if (component.type().isAssignableFrom(beanClass)) {
+                Class<?>[] typeArguments = ResolvableType.forClass(beanClass).as(component.type()).resolveGenerics();
+                return (generationContext, beanRegistrationCode) ->
+                        registerHints(generationContext.getRuntimeHints().reflection(), beanClass, component, typeArguments);
+            }
+        }
+
+        return null;
+    }
+
+    private void registerHints(ReflectionHints hints, Class<?> beanClass, GenericComponent component, Class<?>[] typeArguments) {
+        hints.registerType(beanClass);
+
+        Class<?> entityType = typeArgument(typeArguments, component.entityIndex());
+        if (entityType != null) {
+            registerFieldsOfHierarchy(hints, entityType);
+        }
+
+        Class<?> parentType = typeArgument(typeArguments, component.parentIndex());
+        if (parentType != null) {
+            registerFieldsOfHierarchy(hints, parentType);
+        }
+
+        Class<?> requestType = typeArgument(typeArguments, component.requestIndex());
+        if (requestType != null) {
+            hints.registerType(requestType, MemberCategory.ACCESS_DECLARED_FIELDS);
+            bindingRegistrar.registerReflectionHints(hints, requestType);
+        }
+
+        Class<?> dtoType = typeArgument(typeArguments, component.dtoIndex());
+        if (dtoType != null) {
+            bindingRegistrar.registerReflectionHints(hints, dtoType);
+        }
+    }
+
+    /**
+     * Registers the declared fields of the type and its superclasses, as the metamodel exposes inherited
+     * attributes through the fields of the class declaring them.
+     */
+    private static void registerFieldsOfHierarchy(ReflectionHints hints, Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            hints.registerType(current, MemberCategory.ACCESS_DECLARED_FIELDS);
+        }
+    }
+
+    private static Class<?> typeArgument(Class<?>[] typeArguments, int index) {
+        return index >= 0 && index < typeArguments.length ? typeArguments[index] : null;
+    }
+
+    private record GenericComponent(Class<?> type, int entityIndex, int parentIndex, int requestIndex, int dtoIndex) {
+    }
+}
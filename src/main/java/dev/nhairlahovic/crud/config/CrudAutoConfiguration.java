@@ -0,0 +1,82 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.controller.CrudController;
+import dev.nhairlahovic.crud.instrumentation.DeadlineFilter;
+import dev.nhairlahovic.crud.instrumentation.InstrumentedDataSourcePostProcessor;
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Auto-configuration for the CRUD module.
+ */
+@AutoConfiguration
+@ConditionalOnClass(EntityManagerFactory.class)
+public class CrudAutoConfiguration {
+
+    @Bean
+    public CrudServiceInitializer crudServiceInitializer(ObjectProvider<EntityManagerFactory> entityManagerFactory,
+                                                         ObjectProvider<CrudService<?, ?>> crudServices,
+                                                         ObjectProvider<NestedCrudService<?, ?, ?, ?>> nestedCrudServices,
+                                                         ObjectProvider<DataSource> dataSource) {
+        return new CrudServiceInitializer(entityManagerFactory, crudServices, nestedCrudServices, dataSource);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({MeterRegistry.class, SessionFactory.class})
+    static class QueryPlanCacheMetricsConfiguration {
+
+        @Bean
+        public QueryPlanCacheMetrics crudQueryPlanCacheMetrics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+            return new QueryPlanCacheMetrics(entityManagerFactory);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "crud.warmup", name = "enabled", havingValue = "true")
+    static class WarmUpConfiguration {
+
+        @Bean
+        public CrudWarmUpRunner crudWarmUpRunner(ObjectProvider<CrudService<?, ?>> crudServices,
+                                                 ObjectProvider<CrudController<?, ?, ?, ?>> crudControllers,
+                                                 ObjectProvider<JsonMapper> jsonMapper,
+                                                 @Value("${crud.warmup.budget:30s}") Duration budget,
+                                                 @Value("${crud.warmup.iterations:10}") int iterations,
+                                                 @Value("${crud.warmup.search-value:a}") String searchValue) {
+            return new CrudWarmUpRunner(crudServices, crudControllers, jsonMapper, budget, iterations, searchValue);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(prefix = "crud.query-timeouts", name = "enabled", havingValue = "true")
+    static class QueryTimeoutConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public static InstrumentedDataSourcePostProcessor crudInstrumentedDataSourcePostProcessor() {
+            return new InstrumentedDataSourcePostProcessor();
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        public DeadlineFilter crudDeadlineFilter(@Value("${crud.query-timeouts.max-request-timeout:30s}") Duration maxRequestTimeout) {
+            return new DeadlineFilter(maxRequestTimeout);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Binds every {@link CrudService} and {@link NestedCrudService} bean to the JPA metamodel once all singletons have been created,
+ * so that misconfigured services fail the application startup. Each service is bound to the entity manager factory it
+ * supplies, or else to the one whose persistence unit manages its entity; services whose entity no persistence unit
+ * manages are left unbound. Allowed sort fields that are not backed by an index are reported once the services are bound.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CrudServiceInitializer implements SmartInitializingSingleton {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private final ObjectProvider<CrudService<?, ?>> crudServices;
+    private final ObjectProvider<NestedCrudService<?, ?, ?, ?>> nestedCrudServices;
+    private final ObjectProvider<DataSource> dataSource;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<EntityManagerFactory> factories = entityManagerFactory.orderedStream().toList();
+
+        crudServices.orderedStream().forEach(service -> {
+            Optional<EntityManagerFactory> factory = service.getEntityManagerFactory()
+                    .or(() -> findManaging(factories, service.getEntityClass()));
+            if (factory.isEmpty()) {
+                log.warn("No persistence unit manages the entity of {}, the service is not bound", service.getResourceType());
+                return;
+            }
+
+            service.bindEntityManagerFactory(factory.get());
+            DataSource source = dataSourceOf(factory.get(), factories.size());
+            if (source != null) {
+                new SortIndexVerifier(factory.get(), source).verify(service);
+            }
+        });
+
+        nestedCrudServices.orderedStream().forEach(service -> {
+            Optional<EntityManagerFactory> factory = service.getEntityManagerFactory()
+                    .or(() -> findManaging(factories, service.getEntityClass(), service.getParentClass()));
+            if (factory.isEmpty()) {
+                log.warn("No persistence unit manages the entities of {}, the service is not bound", service.getResourceType());
+                return;
+            }
+
+            service.bindEntityManagerFactory(factory.get());
+            DataSource source = dataSourceOf(factory.get(), factories.size());
+            if (source != null) {
+                new SortIndexVerifier(factory.get(), source).verify(service);
+            }
+        });
+    }
+
+    private static Optional<EntityManagerFactory> findManaging(List<EntityManagerFactory> factories, Class<?>... entityClasses) {
+        return factories.stream()
+                .filter(factory -> Arrays.stream(entityClasses).allMatch(entityClass -> manages(factory, entityClass)))
+                .findFirst();
+    }
+
+    private static boolean manages(EntityManagerFactory factory, Class<?> entityClass) {
+        for (EntityType<?> entity : factory.getMetamodel().getEntities()) {
+            if (entity.getJavaType() == entityClass) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the data source of the factory, or the application's only data source if the factory does not
+     * expose one and it is the only factory.
+     */
+    private DataSource dataSourceOf(EntityManagerFactory factory, int factoryCount) {
+        if (factory instanceof EntityManagerFactoryInfo info && info.getDataSource() != null) {
+            return info.getDataSource();
+        }
+        return factoryCount == 1 ? dataSource.getIfUnique() : null;
+    }
+}
@@ -0,0 +1,111 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.controller.CrudController;
+import dev.nhairlahovic.crud.instrumentation.QueryDeadline;
+import dev.nhairlahovic.crud.service.CrudService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms up the CRUD resources before the application reports ready.
+ * Every {@link CrudService} and {@link CrudController} bean runs its read operations for up to {@code iterations}
+ * rounds, and the controller responses are serialized by the application's JSON mapper, which prepares Hibernate
+ * query plans, pooled connections, the mappers and their reflective lookups, the Jackson serializers of the DTOs
+ * and the JIT.
+ * <p>
+ * Spring Boot only reports the application as ready once all application runners have completed, so readiness
+ * waits for the warm-up, for at most the time budget. The rounds run on a worker thread, and once the budget is spent
+ * the runner stops waiting for it: the worker finishes the operation it is running and starts no other. Queries of
+ * that operation run to completion unless query timeouts are enabled, in which case the {@link QueryDeadline} cancels
+ * them at the end of the budget. A bean whose warm-up fails is logged and skipped in later rounds; failures never fail
+ * the startup.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CrudWarmUpRunner implements ApplicationRunner {
+
+    private final ObjectProvider<CrudService<?, ?>> crudServices;
+    private final ObjectProvider<CrudController<?, ?, ?, ?>> crudControllers;
+    private final ObjectProvider<JsonMapper> jsonMapper;
+    private final Duration budget;
+    private final int iterations;
+    private final String searchValue;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<CrudService<?, ?>> services = crudServices.orderedStream().toList();
+        List<CrudController<?, ?, ?, ?>> controllers = crudControllers.orderedStream().toList();
+        JsonMapper mapper = jsonMapper.getIfUnique();
+
+        long start = System.nanoTime();
+        long deadline = start + budget.toNanos();
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicInteger rounds = new AtomicInteger();
+        Thread worker = Thread.ofVirtual()
+                .name("crud-warmup")
+                .start(() -> runRounds(services, controllers, mapper, deadline, stopped, rounds));
+
+        try {
+            if (!worker.join(budget)) {
+                log.warn("Warm-up did not finish within {} ms, the application no longer waits for it", budget.toMillis());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.set(true);
+        }
+
+        log.info("Warmed up {} CRUD services and {} controllers in {} rounds within {} ms",
+                services.size(), controllers.size(), rounds.get(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private void runRounds(List<CrudService<?, ?>> services, List<CrudController<?, ?, ?, ?>> controllers,
+                           JsonMapper mapper, long deadline, AtomicBoolean stopped, AtomicInteger rounds) {
+        Set<Object> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        while (rounds.get() < iterations && !stopped.get() && deadline - System.nanoTime() > 0) {
+            for (CrudService<?, ?> service : services) {
+                warmUp(service, service.getResourceType(), deadline, stopped, failed, () -> service.warmUp(searchValue));
+            }
+            for (CrudController<?, ?, ?, ?> controller : controllers) {
+                warmUp(controller, controller.getClass().getSimpleName(), deadline, stopped, failed, () -> {
+                    List<Object> responses = controller.warmUp(searchValue);
+                    if (mapper != null) {
+                        responses.forEach(mapper::writeValueAsBytes);
+                    }
+                });
+            }
+            rounds.incrementAndGet();
+        }
+    }
+
+    private static void warmUp(Object bean, String name, long deadline, AtomicBoolean stopped, Set<Object> failed,
+                               Runnable action) {
+        Duration remaining = Duration.ofNanos(deadline - System.nanoTime());
+        if (stopped.get() || failed.contains(bean) || remaining.isNegative() || remaining.isZero()) {
+            return;
+        }
+
+        try {
+            QueryDeadline.within(remaining, () -> {
+                action.run();
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            failed.add(bean);
+            log.warn("Warm-up of {} failed, skipping it", name, ex);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.nhairlahovic.crud.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.QuerySettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Publishes the hit and miss counts of Hibernate's query plan cache as
+ * {@code crud.query.plan.cache.hits}, {@code crud.query.plan.cache.misses} and {@code crud.query.plan.cache.hit.ratio}.
+ * Criteria queries only use the plan cache when {@code hibernate.criteria.plan_cache_enabled} is set, and Hibernate
+ * only counts hits and misses when {@code hibernate.generate_statistics} is enabled; without either the metrics
+ * would always read zero, so they are not registered and a warning is logged instead.
+ */
+@Slf4j
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+    public QueryPlanCacheMetrics(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        EntityManagerFactory factory = entityManagerFactory.getIfUnique();
+        if (factory == null) {
+            return;
+        }
+
+        if (!Boolean.parseBoolean(String.valueOf(factory.getProperties().get(QuerySettings.CRITERIA_PLAN_CACHE_ENABLED)))) {
+            log.warn("Query plan cache metrics are not registered: set {} to cache the plans of criteria queries",
+                    QuerySettings.CRITERIA_PLAN_CACHE_ENABLED);
+            return;
+        }
+        Statistics statistics = factory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            log.warn("Query plan cache metrics are not registered: set hibernate.generate_statistics to count plan cache hits");
+            return;
+        }
+
+        FunctionCounter.builder("crud.query.plan.cache.hits", statistics, Statistics::getQueryPlanCacheHitCount)
+                .register(registry);
+        FunctionCounter.builder("crud.query.plan.cache.misses", statistics, Statistics::getQueryPlanCacheMissCount)
+                .register(registry);
+        Gauge.builder("crud.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+    }
+
+    private static double hitRatio(Statistics statistics) {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long total = hits + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+}
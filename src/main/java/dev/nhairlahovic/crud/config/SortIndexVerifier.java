@@ -0,0 +1,93 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Checks the allowed sort fields of {@link CrudService} and {@link NestedCrudService} beans against the indexes reported by the database.
+ * A sort field is considered indexed when its column is the leading column of at least one index.
+ * Unindexed sort fields are reported as warnings, since sorting by them requires a full scan and a filesort.
+ */
+@Slf4j
+@RequiredArgsConstructor
+class SortIndexVerifier {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final DataSource dataSource;
+
+    void verify(CrudService<?, ?> service) {
+        verify(service.getEntityClass(), service.getAllowedSortFields(), service.getResourceType());
+    }
+
+    void verify(NestedCrudService<?, ?, ?, ?> service) {
+        verify(service.getEntityClass(), service.getAllowedSortFields(), service.getResourceType());
+    }
+
+    private void verify(Class<?> entityClass, Set<String> allowedSortFields, String resourceType) {
+        if (allowedSortFields.isEmpty()) {
+            return;
+        }
+
+        EntityPersister persister = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(entityClass);
+        if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+            return;
+        }
+
+        String tableName = entityPersister.getTableName();
+        Set<String> indexedColumns;
+        try {
+            indexedColumns = findLeadingIndexColumns(tableName);
+        } catch (SQLException ex) {
+            log.warn("Could not read indexes of table {} to verify the sort fields of {}", tableName, resourceType, ex);
+            return;
+        }
+
+        for (String field : allowedSortFields) {
+            String[] columns = entityPersister.getPropertyColumnNames(field);
+            if (columns.length == 0 || !indexedColumns.contains(columns[0].toLowerCase(Locale.ROOT))) {
+                log.warn("Sort field '{}' of {} is not the leading column of any index on table {}",
+                        field, resourceType, tableName);
+            }
+        }
+    }
+
+    private Set<String> findLeadingIndexColumns(String qualifiedTableName) throws SQLException {
+        String tableName = qualifiedTableName.substring(qualifiedTableName.lastIndexOf('.') + 1);
+        Set<String> columns = new HashSet<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Databases differ in how they store unquoted identifiers, so try the name as mapped and in both cases
+            for (String candidate : new HashSet<>(List.of(tableName, tableName.toUpperCase(Locale.ROOT), tableName.toLowerCase(Locale.ROOT)))) {
+                try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), candidate, false, true)) {
+                    while (indexes.next()) {
+                        String column = indexes.getString("COLUMN_NAME");
+                        if (column != null && indexes.getShort("ORDINAL_POSITION") == 1) {
+                            columns.add(column.toLowerCase(Locale.ROOT));
+                        }
+                    }
+                }
+            }
+        }
+
+        return columns;
+    }
+}
@@ -0,0 +1,22 @@
+package dev.nhairlahovic.crud.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Limits the number of children that nested controllers accept in one request.
+ */
+final class ChildrenPerRequest {
+
+    private ChildrenPerRequest() {
+    }
+
+    static void check(List<?> requests, int maxChildren) {
+        if (requests.size() > maxChildren) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most %d resources can be sent at once.".formatted(maxChildren));
+        }
+    }
+}
@@ -3,28 +3,49 @@ package dev.nhairlahovic.crud.controller;
 import dev.nhairlahovic.crud.annotation.Patchable;
 import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
 import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import dev.nhairlahovic.crud.instrumentation.RequestTiming;
+import dev.nhairlahovic.crud.limiter.AdaptiveConcurrencyLimiter;
+import dev.nhairlahovic.crud.limiter.OperationClass;
 import dev.nhairlahovic.crud.mapper.ResourceMapper;
 import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.MultiGetDto;
 import dev.nhairlahovic.crud.model.PageDto;
+import dev.nhairlahovic.crud.model.PatchRequest;
 import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.SingleFlight;
 import dev.nhairlahovic.crud.validator.ValidationGroups;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
-import tools.jackson.databind.JsonNode;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -44,60 +65,250 @@ public abstract class CrudController<E extends BaseEntity<I>, R, D, I> {
     protected final CrudService<E, I> crudService;
     protected final ResourceMapper<E, R, D, I> mapper;
 
+    private Validator validator;
+    private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+    private ObjectProvider<JsonMapper> jsonMapper;
+    private HttpServletResponse response;
+
     @GetMapping("/all")
     public List<D> getAllResources(@RequestParam(required = false) String search) {
-        return crudService.getAll(search)
-                .stream()
-                .map(mapper::mapToDto)
-                .toList();
+        return limited(search == null ? OperationClass.READ : OperationClass.SEARCH, () -> {
+            List<E> resources = inService(() -> crudService.getAll(search));
+            return inMapping(() -> resources.stream()
+                    .map(mapper::mapToDto)
+                    .toList());
+        });
     }
 
     @GetMapping
     public PageDto<D> getPaginatedResources(@PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
                                             @RequestParam(required = false) String search) {
-        Page<D> paginatedResources = crudService.getByPage(pageable, search).map(mapper::mapToDto);
-        return PageDto.of(paginatedResources);
+        return coalesced(new PageKey(getClass(), pageable, search), () -> limited(search == null ? OperationClass.READ : OperationClass.SEARCH, () -> {
+            Page<E> resources = inService(() -> crudService.getByPage(pageable, search));
+            return inMapping(() -> PageDto.of(resources.map(mapper::mapToDto)));
+        }));
     }
 
     @GetMapping("/{id}")
     public D getResourceById(@PathVariable("id") I id) throws ResourceNotFoundException {
-        E resource = crudService.getById(id);
-        return mapper.mapToDto(resource);
+        return coalesced(new IdKey(getClass(), id), () -> limited(OperationClass.READ, () -> {
+            E resource = inService(() -> crudService.getById(id));
+            return inMapping(() -> mapper.mapToDto(resource));
+        }));
+    }
+
+    @GetMapping(params = "ids")
+    public MultiGetDto<I, D> getResourcesByIds(@RequestParam List<I> ids) {
+        return getResourcesByIdList(ids);
+    }
+
+    @PostMapping("/by-ids")
+    public MultiGetDto<I, D> getResourcesByIdsInBody(@RequestBody List<I> ids) {
+        return getResourcesByIdList(ids);
     }
 
     @PostMapping
     public D createResource(@Validated(ValidationGroups.All.class) @RequestBody R request) {
-        E resource = mapper.mapToEntity(request);
-        E savedResource = crudService.create(resource);
-        return mapper.mapToDto(savedResource);
+        return limited(OperationClass.WRITE, () -> {
+            E resource = inMapping(() -> mapper.mapToEntity(request));
+            E savedResource = inService(() -> crudService.create(resource));
+            return inMapping(() -> mapper.mapToDto(savedResource));
+        });
     }
 
     @PutMapping("/{id}")
     public D updateResource(@PathVariable("id") I id,
                             @Validated(ValidationGroups.All.class) @RequestBody R request) throws ResourceNotFoundException {
-        E resource = mapper.updateEntity(id, request);
-        E updatedResource = crudService.update(id, resource);
-        return mapper.mapToDto(updatedResource);
+        return limited(OperationClass.WRITE, () -> {
+            E resource = inMapping(() -> mapper.updateEntity(id, request));
+            E updatedResource = inService(() -> crudService.update(id, resource));
+            return inMapping(() -> mapper.mapToDto(updatedResource));
+        });
     }
 
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @DeleteMapping("/{id}")
     public void deleteResource(@PathVariable("id") I id) throws ResourceNotFoundException, ConflictingResourceOperationException {
-        crudService.delete(id);
+        limited(OperationClass.WRITE, () -> inService(() -> {
+            crudService.delete(id);
+            return null;
+        }));
+        if (crudService.isDeletionDeferred()) {
+            DeferredDeletionResponse.accept(response);
+        }
     }
 
     @PatchMapping("/{id}")
     public D patchResource(@PathVariable("id") I id,
-                           @RequestBody JsonNode request) throws ResourceNotFoundException {
+                           @RequestBody PatchRequest<R> request) throws ResourceNotFoundException {
         var patchableFields = getPatchableFields();
         if (patchableFields.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.METHOD_NOT_ALLOWED, "HTTP method PATCH is not supported for this resource.");
         }
 
-        E resource = crudService.getById(id);
-        E patchedResource = mapper.patchEntity(resource, request, patchableFields);
-        E savedResource = crudService.update(id, patchedResource);
-        return mapper.mapToDto(savedResource);
+        return limited(OperationClass.WRITE, () -> {
+            E resource = inService(() -> crudService.getByIdForUpdate(id));
+            E patchedResource = inMapping(() -> mapper.patchEntity(resource, request, patchableFields));
+            E savedResource = inService(() -> crudService.update(id, patchedResource));
+            return inMapping(() -> mapper.mapToDto(savedResource));
+        });
+    }
+
+    /**
+     * Imports newline-delimited JSON request records, one per line, and streams back a report of the failed
+     * records followed by a summary. With {@code upsert}, records whose {@code id} belongs to a stored entity
+     * update it; all other records are created.
+     *
+     * @param body   the records
+     * @param upsert whether to update the entities of records with a known id
+     * @return the streamed NDJSON report
+     */
+    @PostMapping(path = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importResources(InputStream body,
+                                                                 @RequestParam(defaultValue = "false") boolean upsert) {
+        checkImportable();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(report -> newImporter(upsert, report).importNdjson(body));
+    }
+
+    /**
+     * Imports CSV request records with a header line naming the request fields, and streams back a report
+     * of the failed records followed by a summary. See {@link #importResources}.
+     *
+     * @param body   the records
+     * @param upsert whether to update the entities of records with a known id
+     * @return the streamed NDJSON report
+     */
+    @PostMapping(path = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importCsvResources(InputStream body,
+                                                                    @RequestParam(defaultValue = "false") boolean upsert) {
+        checkImportable();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(report -> newImporter(upsert, report).importCsv(body));
+    }
+
+    /**
+     * Runs the read endpoints of this resource once, so that its queries, the mapper and the reflective lookups
+     * of this controller are prepared before the application takes traffic: the first page, a search for the
+     * given value if the resource is searchable, and the first resource by id.
+     *
+     * @param searchValue the value to search for
+     * @return the responses, for warming up their serialization
+     */
+    public List<Object> warmUp(String searchValue) {
+        getPatchableFields();
+        getRequestClass();
+
+        Pageable firstPage = PageRequest.of(0, 20, Sort.by("id"));
+        List<Object> responses = new ArrayList<>();
+        responses.add(getPaginatedResources(firstPage, null));
+        if (crudService.getFilterCriteria().isPresent()) {
+            responses.add(getPaginatedResources(firstPage, searchValue));
+        }
+        crudService.getByPage(PageRequest.of(0, 1, Sort.by("id")), null).stream()
+                .findFirst()
+                .ifPresent(resource -> responses.add(getResourceById(resource.getId())));
+        return responses;
+    }
+
+    @Autowired(required = false)
+    public void setValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    @Autowired
+    public void setEntityManagerFactory(ObjectProvider<EntityManagerFactory> entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Autowired
+    public void setJsonMapper(ObjectProvider<JsonMapper> jsonMapper) {
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Autowired(required = false)
+    public void setResponse(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    protected int getMaxIdsPerRequest() {
+        return 10_000;
+    }
+
+    private MultiGetDto<I, D> getResourcesByIdList(List<I> ids) {
+        List<I> requestedIds = ids.stream().distinct().toList();
+        if (requestedIds.size() > getMaxIdsPerRequest()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most %d ids can be requested at once.".formatted(getMaxIdsPerRequest()));
+        }
+
+        return limited(OperationClass.READ, () -> {
+            Map<I, E> resourcesById = inService(() -> crudService.getByIdIn(requestedIds))
+                    .stream()
+                    .collect(Collectors.toMap(BaseEntity::getId, Function.identity()));
+
+            List<D> content = inMapping(() -> requestedIds.stream()
+                    .map(resourcesById::get)
+                    .filter(Objects::nonNull)
+                    .map(mapper::mapToDto)
+                    .toList());
+            List<I> missing = requestedIds.stream()
+                    .filter(id -> !resourcesById.containsKey(id))
+                    .toList();
+
+            return MultiGetDto.of(content, missing);
+        });
+    }
+
+    /**
+     * Returns the number of imported records saved together, each batch in one transaction.
+     *
+     * @return the import batch size
+     */
+    protected int getImportBatchSize() {
+        return 500;
+    }
+
+    private void checkImportable() {
+        if (validator == null) {
+            throw new IllegalStateException("Importing " + crudService.getResourceType() + " requires a Validator bean");
+        }
+    }
+
+    private ResourceImporter<E, R, I> newImporter(boolean upsert, OutputStream report) {
+        // Records are read and reported with the application's JSON settings, like the request bodies of the other endpoints
+        JsonMapper objectMapper = jsonMapper == null ? null : jsonMapper.getIfUnique();
+        return new ResourceImporter<>(crudService, mapper, validator,
+                objectMapper != null ? objectMapper : ResourceMapper.OBJECT_MAPPER,
+                entityManagerFactory == null ? null : entityManagerFactory.getIfUnique(),
+                getRequestClass(), getIdClass(), getImportBatchSize(), upsert, report);
+    }
+
+    /**
+     * Returns the limiter that bounds concurrent requests to this resource.
+     * Subclasses can override to opt in; by default requests are not limited.
+     *
+     * @return the concurrency limiter, or empty to admit every request
+     */
+    protected Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the single-flight group used to share identical concurrent reads.
+     * Coalesced callers share the response DTO mapped by the first caller, so entities never leave the
+     * persistence context of the request that loaded them. The group may be shared with other controllers,
+     * as calls are keyed by the controller class; callers that wait longer than its {@code maxWait} are
+     * answered with {@code 503 Service Unavailable}.
+     * Subclasses can override to opt in; by default every read runs its own query.
+     *
+     * @return the single-flight group for {@link #getResourceById} and {@link #getPaginatedResources},
+     * or empty to disable coalescing
+     */
+    protected Optional<SingleFlight> getReadCoalescer() {
+        return Optional.empty();
     }
 
     protected Map<String, String> getPatchableFields() {
@@ -114,9 +325,45 @@ public abstract class CrudController<E extends BaseEntity<I>, R, D, I> {
                 ));
     }
 
+    private <T> T limited(OperationClass operation, Supplier<T> action) {
+        Optional<AdaptiveConcurrencyLimiter> limiter = getConcurrencyLimiter();
+        if (limiter.isEmpty()) {
+            return action.get();
+        }
+
+        try (var permit = limiter.get().acquire(operation)) {
+            return action.get();
+        }
+    }
+
+    private <T> T coalesced(Object key, Supplier<T> loader) {
+        Optional<SingleFlight> coalescer = getReadCoalescer();
+        return coalescer.isPresent() ? coalescer.get().execute(crudService.getResourceType(), key, loader) : loader.get();
+    }
+
+    private static <T> T inService(Supplier<T> call) {
+        return RequestTiming.time("service", call);
+    }
+
+    private static <T> T inMapping(Supplier<T> call) {
+        return RequestTiming.time("mapping", call);
+    }
+
     @SuppressWarnings("unchecked")
     protected Class<R> getRequestClass() {
         ParameterizedType type = (ParameterizedType) getClass().getGenericSuperclass();
         return (Class<R>) type.getActualTypeArguments()[1]; // index 1 = R
     }
+
+    @SuppressWarnings("unchecked")
+    private Class<I> getIdClass() {
+        ParameterizedType type = (ParameterizedType) getClass().getGenericSuperclass();
+        return (Class<I>) type.getActualTypeArguments()[3]; // index 3 = I
+    }
+
+    private record IdKey(Class<?> controller, Object id) {
+    }
+
+    private record PageKey(Class<?> controller, Pageable pageable, String search) {
+    }
 }
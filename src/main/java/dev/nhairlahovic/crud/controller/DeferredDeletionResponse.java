@@ -0,0 +1,30 @@
+package dev.nhairlahovic.crud.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Answers deletes that only marked entities for deletion with {@code 202 Accepted}.
+ * The delete endpoints are annotated with {@code @ResponseStatus(NO_CONTENT)}, which is applied once the handler
+ * has returned, so the status is committed right away and the annotation no longer changes it.
+ */
+final class DeferredDeletionResponse {
+
+    private DeferredDeletionResponse() {
+    }
+
+    static void accept(HttpServletResponse response) {
+        if (response == null) {
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_ACCEPTED);
+        try {
+            response.flushBuffer();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package dev.nhairlahovic.crud.controller;
+
+import dev.nhairlahovic.crud.model.GroupedDto;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * This abstract class provides an endpoint that loads the related entities of many parents in one request.
+ * It complements {@link NestedCrudController} and {@link NestedCompositeKeyCrudController}, whose paths
+ * are scoped to a single parent, and must be mapped by concrete classes to a path outside a parent,
+ * for example {@code /parents/children}.
+ *
+ * @param <P>  The type of the parent entity.
+ * @param <E>  The type of the related entity.
+ * @param <D>  The type of the response DTO.
+ * @param <PI> The type of the ID of the parent entity.
+ * @param <I>  The type of the ID of the related entity.
+ */
+@RequiredArgsConstructor
+public abstract class NestedBatchController<P, E, D, PI, I> {
+
+    protected final NestedCrudService<P, E, PI, I> nestedCrudService;
+    protected final Function<E, D> dtoMapper;
+
+    @GetMapping
+    public GroupedDto<PI, D> getResourcesByParents(@RequestParam List<PI> parentIds) {
+        List<PI> requestedIds = parentIds.stream().distinct().toList();
+        if (requestedIds.size() > getMaxParentIds()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most %d parent ids can be requested at once.".formatted(getMaxParentIds()));
+        }
+
+        Map<PI, List<E>> children = nestedCrudService.getAllByParentIds(requestedIds);
+
+        Map<PI, List<D>> content = new LinkedHashMap<>();
+        children.forEach((parentId, entities) -> content.put(parentId, entities.stream().map(dtoMapper).toList()));
+        List<PI> missing = requestedIds.stream()
+                .filter(parentId -> !children.containsKey(parentId))
+                .toList();
+
+        return GroupedDto.of(content, missing);
+    }
+
+    protected int getMaxParentIds() {
+        return 1000;
+    }
+}
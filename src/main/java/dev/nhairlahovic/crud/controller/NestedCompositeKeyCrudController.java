@@ -2,14 +2,24 @@ package dev.nhairlahovic.crud.controller;
 
 import dev.nhairlahovic.crud.mapper.CompositeKeyResourceMapper;
 import dev.nhairlahovic.crud.model.BaseCompositeKeyEntity;
+import dev.nhairlahovic.crud.model.PageDto;
 import dev.nhairlahovic.crud.service.NestedCrudService;
+import dev.nhairlahovic.crud.service.SingleFlight;
 import dev.nhairlahovic.crud.validator.ValidationGroups;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * This abstract class provides a generic CRUD (Create, Read, Update, Delete) controller
@@ -33,19 +43,31 @@ public abstract class NestedCompositeKeyCrudController<P, E extends BaseComposit
     protected final NestedCrudService<P, E, PI, I> nestedCrudService;
     protected final CompositeKeyResourceMapper<E, R, D, PI, I> mapper;
 
+    private HttpServletResponse response;
+
     @GetMapping
     public List<D> getAllResources(@PathVariable PI parentId) {
-        return nestedCrudService.getAllByParent(parentId)
+        return coalesced(new ParentKey(getClass(), parentId), () -> nestedCrudService.getAllByParent(parentId)
                 .stream()
                 .map(mapper::mapToDto)
-                .toList();
+                .toList());
+    }
+
+    /**
+     * Returns a page of the parent's children when the {@code page} query parameter is given; without it the
+     * collection path returns all children.
+     */
+    @GetMapping(params = "page")
+    public PageDto<D> getPaginatedResources(@PathVariable PI parentId,
+                                            @PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+                                            @RequestParam(required = false) String search) {
+        return PageDto.of(nestedCrudService.getByParent(parentId, pageable, search).map(mapper::mapToDto));
     }
 
     @GetMapping("/{id}")
     public D getResourceById(@PathVariable PI parentId, @PathVariable C id) {
         I compositeId = convertToCompositeId(parentId, id);
-        E entity = nestedCrudService.getById(parentId, compositeId);
-        return mapper.mapToDto(entity);
+        return coalesced(new IdKey(getClass(), parentId, compositeId), () -> mapper.mapToDto(nestedCrudService.getById(parentId, compositeId)));
     }
 
     @PostMapping
@@ -68,6 +90,54 @@ public abstract class NestedCompositeKeyCrudController<P, E extends BaseComposit
     public void deleteResource(@PathVariable PI parentId, @PathVariable C id) {
         I compositeId = convertToCompositeId(parentId, id);
         nestedCrudService.delete(parentId, compositeId);
+        if (nestedCrudService.isDeletionDeferred()) {
+            DeferredDeletionResponse.accept(response);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping
+    public void deleteAllResources(@PathVariable PI parentId) {
+        nestedCrudService.deleteAllByParent(parentId);
+        if (nestedCrudService.isDeletionDeferred()) {
+            DeferredDeletionResponse.accept(response);
+        }
+    }
+
+    @PutMapping
+    @Validated(ValidationGroups.All.class)
+    public List<D> replaceAllResources(@PathVariable PI parentId, @RequestBody List<@Valid R> requests) {
+        ChildrenPerRequest.check(requests, getMaxChildrenPerRequest());
+
+        List<E> entities = requests.stream()
+                .map(request -> mapper.mapToEntity(parentId, request))
+                .toList();
+        return nestedCrudService.replaceAllByParent(parentId, entities).stream()
+                .map(mapper::mapToDto)
+                .toList();
+    }
+
+    /**
+     * Returns the single-flight group used to share identical concurrent reads.
+     * Coalesced callers share the response DTOs mapped by the first caller, so entities never leave the
+     * persistence context of the request that loaded them. The group may be shared with other controllers,
+     * as calls are keyed by the controller class; callers that wait longer than its {@code maxWait} are
+     * answered with {@code 503 Service Unavailable}.
+     * Subclasses can override to opt in; by default every read runs its own query.
+     *
+     * @return the single-flight group for {@link #getAllResources} and {@link #getResourceById}, or empty to disable coalescing
+     */
+    protected Optional<SingleFlight> getReadCoalescer() {
+        return Optional.empty();
+    }
+
+    @Autowired(required = false)
+    public void setResponse(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    protected int getMaxChildrenPerRequest() {
+        return 10_000;
     }
 
     /**
@@ -79,4 +149,15 @@ public abstract class NestedCompositeKeyCrudController<P, E extends BaseComposit
      * @return The composite key of type I.
      */
     protected abstract I convertToCompositeId(PI parentId, C id);
+
+    private <T> T coalesced(Object key, Supplier<T> loader) {
+        Optional<SingleFlight> coalescer = getReadCoalescer();
+        return coalescer.isPresent() ? coalescer.get().execute(nestedCrudService.getResourceType(), key, loader) : loader.get();
+    }
+
+    private record ParentKey(Class<?> controller, Object parentId) {
+    }
+
+    private record IdKey(Class<?> controller, Object parentId, Object id) {
+    }
 }
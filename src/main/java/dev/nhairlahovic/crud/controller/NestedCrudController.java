@@ -4,16 +4,26 @@ import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
 import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
 import dev.nhairlahovic.crud.mapper.NestedResourceMapper;
 import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.PageDto;
 import dev.nhairlahovic.crud.service.NestedCrudService;
+import dev.nhairlahovic.crud.service.SingleFlight;
 import dev.nhairlahovic.crud.validator.ValidationGroups;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * This abstract class provides a generic CRUD (Create, Read, Update, Delete) controller
@@ -35,14 +45,29 @@ public abstract class NestedCrudController<P, E extends BaseEntity<I>, R, D, PI,
     protected final NestedCrudService<P, E, PI, I> nestedCrudService;
     protected final NestedResourceMapper<E, R, D, PI, I> mapper;
 
+    private HttpServletResponse response;
+
     @GetMapping
     public List<D> getAllResourcesByParent(@PathVariable Map<String, String> pathVars) {
         PI parentId = resolveParentId(pathVars);
 
-        return nestedCrudService.getAllByParent(parentId)
+        return coalesced(new ParentKey(getClass(), parentId), () -> nestedCrudService.getAllByParent(parentId)
                 .stream()
                 .map(mapper::mapToDto)
-                .toList();
+                .toList());
+    }
+
+    /**
+     * Returns a page of the parent's children when the {@code page} query parameter is given; without it the
+     * collection path returns all children.
+     */
+    @GetMapping(params = "page")
+    public PageDto<D> getPaginatedResourcesByParent(@PathVariable Map<String, String> pathVars,
+                                                    @PageableDefault(sort = "id", direction = Sort.Direction.ASC) Pageable pageable,
+                                                    @RequestParam(required = false) String search) {
+        PI parentId = resolveParentId(pathVars);
+
+        return PageDto.of(nestedCrudService.getByParent(parentId, pageable, search).map(mapper::mapToDto));
     }
 
     @GetMapping("/{id}")
@@ -50,8 +75,7 @@ public abstract class NestedCrudController<P, E extends BaseEntity<I>, R, D, PI,
         PI parentId = resolveParentId(pathVars);
         I id = resolveChildId(pathVars);
 
-        E resource = nestedCrudService.getById(parentId, id);
-        return mapper.mapToDto(resource);
+        return coalesced(new IdKey(getClass(), parentId, id), () -> mapper.mapToDto(nestedCrudService.getById(parentId, id)));
     }
 
     @PostMapping
@@ -86,6 +110,63 @@ public abstract class NestedCrudController<P, E extends BaseEntity<I>, R, D, PI,
         I id = resolveChildId(pathVars);
 
         nestedCrudService.delete(parentId, id);
+        if (nestedCrudService.isDeletionDeferred()) {
+            DeferredDeletionResponse.accept(response);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @DeleteMapping
+    public void deleteAllResourcesByParent(@PathVariable Map<String, String> pathVars) throws ResourceNotFoundException, ConflictingResourceOperationException {
+        PI parentId = resolveParentId(pathVars);
+
+        nestedCrudService.deleteAllByParent(parentId);
+        if (nestedCrudService.isDeletionDeferred()) {
+            DeferredDeletionResponse.accept(response);
+        }
+    }
+
+    @PutMapping
+    @Validated(ValidationGroups.All.class)
+    public List<D> replaceAllResourcesByParent(@PathVariable Map<String, String> pathVars, @RequestBody List<@Valid R> requests) throws ResourceNotFoundException {
+        PI parentId = resolveParentId(pathVars);
+        ChildrenPerRequest.check(requests, getMaxChildrenPerRequest());
+
+        List<E> resources = requests.stream()
+                .map(request -> mapper.mapToEntity(parentId, request))
+                .toList();
+        List<E> savedResources = nestedCrudService.replaceAllByParent(parentId, resources);
+
+        for (int i = 0; i < savedResources.size(); i++) {
+            afterCreate(parentId, savedResources.get(i), requests.get(i));
+        }
+
+        return savedResources.stream()
+                .map(mapper::mapToDto)
+                .toList();
+    }
+
+    /**
+     * Returns the single-flight group used to share identical concurrent reads.
+     * Coalesced callers share the response DTOs mapped by the first caller, so entities never leave the
+     * persistence context of the request that loaded them. The group may be shared with other controllers,
+     * as calls are keyed by the controller class; callers that wait longer than its {@code maxWait} are
+     * answered with {@code 503 Service Unavailable}.
+     * Subclasses can override to opt in; by default every read runs its own query.
+     *
+     * @return the single-flight group for {@link #getAllResourcesByParent} and {@link #getResourceById}, or empty to disable coalescing
+     */
+    protected Optional<SingleFlight> getReadCoalescer() {
+        return Optional.empty();
+    }
+
+    @Autowired(required = false)
+    public void setResponse(HttpServletResponse response) {
+        this.response = response;
+    }
+
+    protected int getMaxChildrenPerRequest() {
+        return 10_000;
     }
 
     /**
@@ -108,6 +189,11 @@ public abstract class NestedCrudController<P, E extends BaseEntity<I>, R, D, PI,
         // default no-op
     }
 
+    private <T> T coalesced(Object key, Supplier<T> loader) {
+        Optional<SingleFlight> coalescer = getReadCoalescer();
+        return coalescer.isPresent() ? coalescer.get().execute(nestedCrudService.getResourceType(), key, loader) : loader.get();
+    }
+
     @SuppressWarnings("unchecked")
     protected PI resolveParentId(Map<String, String> pathVars) {
         PathParamInfo paramInfo = getParentIdPathParam();
@@ -150,4 +236,10 @@ public abstract class NestedCrudController<P, E extends BaseEntity<I>, R, D, PI,
                     .formatted(rawValue, type.getSimpleName()), ex);
         }
     }
+
+    private record ParentKey(Class<?> controller, Object parentId) {
+    }
+
+    private record IdKey(Class<?> controller, Object parentId, Object id) {
+    }
 }
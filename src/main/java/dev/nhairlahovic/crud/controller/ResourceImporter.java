@@ -0,0 +1,309 @@
+package dev.nhairlahovic.crud.controller;
+
+import dev.nhairlahovic.crud.error.CommonErrorCode;
+import dev.nhairlahovic.crud.error.CommonFieldErrorCode;
+import dev.nhairlahovic.crud.error.ErrorDto;
+import dev.nhairlahovic.crud.error.FieldErrorInfo;
+import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import dev.nhairlahovic.crud.exception.QueryTimeoutExceededException;
+import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import dev.nhairlahovic.crud.mapper.ResourceMapper;
+import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.ImportErrorDto;
+import dev.nhairlahovic.crud.model.ImportSummaryDto;
+import dev.nhairlahovic.crud.service.CreateOutcome;
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.validator.ValidationGroups;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.dataformat.csv.CsvMapper;
+import tools.jackson.dataformat.csv.CsvSchema;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a stream of request records through a {@link CrudService} and writes the report as NDJSON.
+ * Records are read one at a time, validated with {@link ValidationGroups.All} and saved in batches: new entities
+ * through {@link CrudService#createBatch}, which commits every batch on its own, and in upsert mode records whose
+ * {@code id} belongs to a stored entity through {@link CrudService#update}. The persistence context bound to the
+ * request, if any, is cleared after every batch, so memory use does not grow with the size of the import.
+ * <p>
+ * The report has one {@link ImportErrorDto} line per failed record and ends with an {@link ImportSummaryDto}.
+ * Records that cannot be read or fail validation are reported right away, records that fail to save once their
+ * batch has been saved.
+ *
+ * @param <E> The type of the entity.
+ * @param <R> The type of the request DTO.
+ * @param <I> The type of the ID of the entity.
+ */
+final class ResourceImporter<E extends BaseEntity<I>, R, I> {
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+    private static final String ID_FIELD = "id";
+
+    private final CrudService<E, I> crudService;
+    private final ResourceMapper<E, R, ?, I> mapper;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Class<R> requestClass;
+    private final Class<I> idClass;
+    private final int batchSize;
+    private final boolean upsert;
+    private final OutputStream report;
+
+    private final List<PendingRecord<R, I>> pending = new ArrayList<>();
+    private long created;
+    private long updated;
+    private long failed;
+
+    ResourceImporter(CrudService<E, I> crudService, ResourceMapper<E, R, ?, I> mapper, Validator validator,
+                     ObjectMapper objectMapper, EntityManagerFactory entityManagerFactory, Class<R> requestClass,
+                     Class<I> idClass, int batchSize, boolean upsert, OutputStream report) {
+        this.crudService = crudService;
+        this.mapper = mapper;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        this.requestClass = requestClass;
+        this.idClass = idClass;
+        this.batchSize = batchSize;
+        this.upsert = upsert;
+        this.report = report;
+    }
+
+    /**
+     * Imports newline-delimited JSON, one object per line. Blank lines are skipped and malformed lines are reported.
+     */
+    void importNdjson(InputStream input) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            JsonNode record;
+            try {
+                record = objectMapper.readTree(line);
+            } catch (JacksonException ex) {
+                reject(lineNumber, malformed(ex));
+                continue;
+            }
+            add(lineNumber, record);
+        }
+        finish(true);
+    }
+
+    /**
+     * Imports CSV with a header line naming the request fields. Records are numbered by line assuming one record
+     * per line, so quoted values spanning lines shift the reported line numbers. Input that is not valid CSV
+     * ends the import, since the following records cannot be told apart reliably.
+     */
+    void importCsv(InputStream input) throws IOException {
+        long lineNumber = 1;
+        try (MappingIterator<JsonNode> records = CSV_MAPPER.readerFor(JsonNode.class)
+                .with(CsvSchema.emptySchema().withHeader())
+                .readValues(input)) {
+            while (records.hasNextValue()) {
+                JsonNode record = records.nextValue();
+                add(++lineNumber, record);
+            }
+        } catch (JacksonException ex) {
+            reject(lineNumber + 1, malformed(ex));
+            finish(false);
+            return;
+        }
+        finish(true);
+    }
+
+    private void add(long line, JsonNode record) throws IOException {
+        if (!(record instanceof ObjectNode fields)) {
+            reject(line, ErrorDto.of("Record must be an object").withErrorCodeEnum(CommonErrorCode.VALIDATION_FAILED));
+            return;
+        }
+
+        try {
+            JsonNode idValue = fields.remove(ID_FIELD);
+            I id = upsert && idValue != null && !idValue.isNull() && !idValue.asString().isEmpty()
+                    ? objectMapper.treeToValue(idValue, idClass)
+                    : null;
+            R request = objectMapper.treeToValue(fields, requestClass);
+
+            Set<ConstraintViolation<R>> violations = validator.validate(request, ValidationGroups.All.class);
+            if (!violations.isEmpty()) {
+                reject(line, invalid(violations));
+                return;
+            }
+            pending.add(new PendingRecord<>(line, id, request));
+        } catch (JacksonException ex) {
+            reject(line, malformed(ex));
+            return;
+        }
+
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        Map<Long, ErrorDto> errors = new TreeMap<>();
+        try {
+            save(errors);
+        } finally {
+            pending.clear();
+            // Detach the saved entities, which would otherwise stay in a persistence context bound to the request
+            EntityManager entityManager = entityManagerFactory == null
+                    ? null
+                    : EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            if (entityManager != null) {
+                entityManager.clear();
+            }
+        }
+
+        for (Map.Entry<Long, ErrorDto> error : errors.entrySet()) {
+            reject(error.getKey(), error.getValue());
+        }
+        report.flush();
+    }
+
+    private void save(Map<Long, ErrorDto> errors) {
+        Set<I> existingIds;
+        try {
+            existingIds = upsert ? findExistingIds() : Set.of();
+        } catch (RuntimeException ex) {
+            pending.forEach(record -> errors.put(record.line(), error(ex)));
+            return;
+        }
+
+        List<PendingRecord<R, I>> creates = new ArrayList<>();
+        List<E> entities = new ArrayList<>();
+        for (PendingRecord<R, I> record : pending) {
+            try {
+                if (record.id() != null && existingIds.contains(record.id())) {
+                    crudService.update(record.id(), mapper.updateEntity(record.id(), record.request()));
+                    updated++;
+                } else {
+                    entities.add(mapper.mapToEntity(record.request()));
+                    creates.add(record);
+                }
+            } catch (RuntimeException ex) {
+                errors.put(record.line(), error(ex));
+            }
+        }
+        if (entities.isEmpty()) {
+            return;
+        }
+
+        List<CreateOutcome<E>> outcomes;
+        try {
+            outcomes = crudService.createBatch(entities);
+        } catch (RuntimeException ex) {
+            creates.forEach(record -> errors.put(record.line(), error(ex)));
+            return;
+        }
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i).isCreated()) {
+                created++;
+            } else {
+                errors.put(creates.get(i).line(), error(outcomes.get(i).error()));
+            }
+        }
+    }
+
+    private Set<I> findExistingIds() {
+        List<I> ids = pending.stream()
+                .map(PendingRecord::id)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+
+        return crudService.getByIdIn(ids).stream()
+                .map(BaseEntity::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private void finish(boolean complete) throws IOException {
+        if (!pending.isEmpty()) {
+            flush();
+        }
+        write(ImportSummaryDto.of(created, updated, failed, complete));
+        report.flush();
+    }
+
+    private void reject(long line, ErrorDto error) throws IOException {
+        failed++;
+        write(ImportErrorDto.of(line, error));
+    }
+
+    private void write(Object line) throws IOException {
+        report.write(objectMapper.writeValueAsBytes(line));
+        report.write('\n');
+    }
+
+    private static ErrorDto malformed(JacksonException ex) {
+        return ErrorDto.of("Malformed record: " + ex.getOriginalMessage())
+                .withErrorCodeEnum(CommonErrorCode.VALIDATION_FAILED);
+    }
+
+    private static <R> ErrorDto invalid(Set<ConstraintViolation<R>> violations) {
+        Map<String, FieldErrorInfo> fieldErrors = new LinkedHashMap<>();
+        for (ConstraintViolation<R> violation : violations) {
+            String constraint = violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName();
+            fieldErrors.putIfAbsent(violation.getPropertyPath().toString(), FieldErrorInfo.builder()
+                    .code(CommonFieldErrorCode.fromCode(constraint))
+                    .message(violation.getMessage())
+                    .rejectedValue(violation.getInvalidValue())
+                    .build());
+        }
+        return ErrorDto.of("Validation failed")
+                .withErrorCodeEnum(CommonErrorCode.VALIDATION_FAILED)
+                .withFieldErrors(fieldErrors);
+    }
+
+    private static ErrorDto error(RuntimeException ex) {
+        return switch (ex) {
+            case ConflictingResourceOperationException conflict -> ErrorDto.of(conflict.getMessage())
+                    .withErrorCodeEnum(CommonErrorCode.RESOURCE_CONFLICT)
+                    .withErrorInfo(conflict.getError());
+            case FieldValidationException invalid -> ErrorDto.of(invalid.getMessage())
+                    .withErrorCodeEnum(CommonErrorCode.VALIDATION_FAILED)
+                    .withFieldErrors(invalid.getFieldErrors());
+            case ResourceNotFoundException notFound -> ErrorDto.of(notFound.getMessage())
+                    .withErrorCodeEnum(CommonErrorCode.RESOURCE_NOT_FOUND);
+            case QueryTimeoutExceededException timeout -> ErrorDto.of(timeout.getMessage())
+                    .withErrorCodeEnum(CommonErrorCode.QUERY_TIMEOUT);
+            default -> ErrorDto.of("Record could not be saved");
+        };
+    }
+
+    private record PendingRecord<R, I>(long line, I id, R request) {
+    }
+}
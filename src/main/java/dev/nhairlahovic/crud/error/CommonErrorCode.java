@@ -5,5 +5,7 @@ import lombok.Getter;
 @Getter
 public enum CommonErrorCode {
     VALIDATION_FAILED,
-    RESOURCE_CONFLICT;
+    RESOURCE_CONFLICT,
+    RESOURCE_NOT_FOUND,
+    QUERY_TIMEOUT;
 }
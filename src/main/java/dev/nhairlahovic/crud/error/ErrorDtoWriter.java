@@ -0,0 +1,154 @@
+package dev.nhairlahovic.crud.error;
+
+import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
+import dev.nhairlahovic.crud.exception.QueryTimeoutExceededException;
+import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.core.io.JsonStringEncoder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Serializes {@link ErrorDto} responses for exception handlers.
+ * Errors that carry only a code and a message, which covers the 404 and most 409 responses, are written
+ * from pre-encoded JSON fragments without going through the object mapper; the fragments are cached per
+ * error code and, for not found errors, per resource type. Any other error is serialized by the object mapper,
+ * so the output is the same either way.
+ * <p>
+ * Intended for use in a {@code @RestControllerAdvice}:
+ * <pre>{@code
+ * @ExceptionHandler(ResourceNotFoundException.class)
+ * ResponseEntity<byte[]> handleNotFound(ResourceNotFoundException ex) {
+ *     return errorDtoWriter.notFound(ex);
+ * }
+ * }</pre>
+ */
+public class ErrorDtoWriter {
+
+    private static final byte[] MESSAGE_FIELD = bytes("\",\"message\":\"");
+    private static final byte[] NOT_FOUND_ID = bytes(" (ID: ");
+    private static final byte[] NOT_FOUND_SUFFIX = bytes(") not found\"}");
+    private static final byte[] OBJECT_END = bytes("\"}");
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, byte[]> codePrefixes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, byte[]> notFoundPrefixes = new ConcurrentHashMap<>();
+
+    public ErrorDtoWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Builds the 404 response for the exception.
+     *
+     * @param ex the exception
+     * @return the response with the JSON encoded error
+     */
+    public ResponseEntity<byte[]> notFound(ResourceNotFoundException ex) {
+        return response(HttpStatus.NOT_FOUND, write(ex));
+    }
+
+    /**
+     * Builds the 409 response for the exception.
+     *
+     * @param ex the exception
+     * @return the response with the JSON encoded error
+     */
+    public ResponseEntity<byte[]> conflict(ConflictingResourceOperationException ex) {
+        ErrorDto error = ErrorDto.of(ex.getMessage())
+                .withErrorCodeEnum(CommonErrorCode.RESOURCE_CONFLICT)
+                .withErrorInfo(ex.getError());
+        return response(HttpStatus.CONFLICT, write(error));
+    }
+
+    /**
+     * Builds the 504 response for the exception.
+     *
+     * @param ex the exception
+     * @return the response with the JSON encoded error
+     */
+    public ResponseEntity<byte[]> timeout(QueryTimeoutExceededException ex) {
+        ErrorDto error = ErrorDto.of(ex.getMessage()).withErrorCodeEnum(CommonErrorCode.QUERY_TIMEOUT);
+        return response(HttpStatus.GATEWAY_TIMEOUT, write(error));
+    }
+
+    /**
+     * Encodes the not found error of the exception without formatting its message first.
+     *
+     * @param ex the exception
+     * @return the JSON encoded error
+     */
+    public byte[] write(ResourceNotFoundException ex) {
+        if (ex.getResourceType() == null) {
+            return write(ErrorDto.of(ex.getMessage()).withErrorCodeEnum(CommonErrorCode.RESOURCE_NOT_FOUND));
+        }
+
+        byte[] prefix = notFoundPrefixes.computeIfAbsent(ex.getResourceType(), resourceType -> {
+            var out = new ByteArrayOutputStream();
+            out.writeBytes(codePrefix(CommonErrorCode.RESOURCE_NOT_FOUND.name()));
+            out.writeBytes(quote(resourceType));
+            out.writeBytes(NOT_FOUND_ID);
+            return out.toByteArray();
+        });
+        byte[] id = quote(String.valueOf(ex.getId()));
+
+        var out = new ByteArrayOutputStream(prefix.length + id.length + NOT_FOUND_SUFFIX.length);
+        out.writeBytes(prefix);
+        out.writeBytes(id);
+        out.writeBytes(NOT_FOUND_SUFFIX);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encodes the error.
+     *
+     * @param error the error
+     * @return the JSON encoded error
+     */
+    public byte[] write(ErrorDto error) {
+        if (error.getCode() == null || error.getMessage() == null || error.getFieldErrors() != null
+                || error.getParams() != null || error.getDetails() != null) {
+            return objectMapper.writeValueAsBytes(error);
+        }
+
+        byte[] prefix = codePrefix(error.getCode());
+        byte[] message = quote(error.getMessage());
+
+        var out = new ByteArrayOutputStream(prefix.length + message.length + OBJECT_END.length);
+        out.writeBytes(prefix);
+        out.writeBytes(message);
+        out.writeBytes(OBJECT_END);
+        return out.toByteArray();
+    }
+
+    private byte[] codePrefix(String code) {
+        return codePrefixes.computeIfAbsent(code, key -> {
+            var out = new ByteArrayOutputStream();
+            out.writeBytes(bytes("{\"code\":\""));
+            out.writeBytes(quote(key));
+            out.writeBytes(MESSAGE_FIELD);
+            return out.toByteArray();
+        });
+    }
+
+    private static ResponseEntity<byte[]> response(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(body);
+    }
+
+    private static byte[] quote(String value) {
+        return JsonStringEncoder.getInstance().quoteAsUTF8(value);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,43 @@
+package dev.nhairlahovic.crud.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.ErrorResponse;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request is shed by the concurrency limiter, answered with {@code 503 Service Unavailable}
+ * and a {@code Retry-After} header.
+ * Requests are shed precisely when the service is overloaded, so the exception does not capture a stack trace.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException implements ErrorResponse {
+
+    private final Duration retryAfter;
+    private final ProblemDetail body;
+
+    public ConcurrencyLimitExceededException(String resourceType, Duration retryAfter) {
+        super("Too many concurrent requests for " + resourceType, null, false, false);
+        this.retryAfter = retryAfter;
+        this.body = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, getMessage());
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+        return HttpStatus.SERVICE_UNAVAILABLE;
+    }
+
+    @Override
+    public ProblemDetail getBody() {
+        return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        return headers;
+    }
+}
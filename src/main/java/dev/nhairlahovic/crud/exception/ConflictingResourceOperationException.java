@@ -3,13 +3,17 @@ package dev.nhairlahovic.crud.exception;
 import dev.nhairlahovic.crud.error.ErrorInfo;
 import lombok.Getter;
 
+/**
+ * Thrown when an operation is rejected because of the current state of the resource.
+ * The exception does not capture a stack trace, since it reports an expected outcome rather than a bug.
+ */
 @Getter
 public class ConflictingResourceOperationException extends RuntimeException {
 
     private final ErrorInfo error;
 
     public ConflictingResourceOperationException(String message, ErrorInfo error) {
-        super(message);
+        super(message, null, false, false);
         this.error = error;
     }
 }
@@ -0,0 +1,18 @@
+package dev.nhairlahovic.crud.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when the queries of a CRUD operation did not complete within their query timeout or the request deadline.
+ * The exception does not capture a stack trace; the timed out query is available as the cause.
+ */
+@Getter
+public class QueryTimeoutExceededException extends RuntimeException {
+
+    private final String resourceType;
+
+    public QueryTimeoutExceededException(String resourceType, Throwable cause) {
+        super("Query for " + resourceType + " did not complete in time", cause, false, false);
+        this.resourceType = resourceType;
+    }
+}
@@ -1,16 +1,36 @@
 package dev.nhairlahovic.crud.exception;
 
+import lombok.Getter;
+
+/**
+ * Thrown when a requested resource does not exist.
+ * Requests for missing ids are common and cheap to answer, so the exception does not capture a stack trace
+ * and only formats its message when it is read.
+ */
+@Getter
 public class ResourceNotFoundException extends RuntimeException {
 
+    private final String resourceType;
+    private final String id;
+
     public ResourceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
+        this.resourceType = null;
+        this.id = null;
     }
 
     public ResourceNotFoundException(String resourceType, Long id) {
-        super(resourceType + " (ID: " + id + ") not found");
+        this(resourceType, String.valueOf(id));
     }
 
     public ResourceNotFoundException(String resourceType, String id) {
-        super(resourceType + " (ID: " + id + ") not found");
+        super(null, null, false, false);
+        this.resourceType = resourceType;
+        this.id = id;
+    }
+
+    @Override
+    public String getMessage() {
+        return resourceType != null ? resourceType + " (ID: " + id + ") not found" : super.getMessage();
     }
 }
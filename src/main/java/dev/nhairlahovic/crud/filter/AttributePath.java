@@ -0,0 +1,84 @@
+package dev.nhairlahovic.crud.filter;
+
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A filter key resolved against the metamodel: either a direct attribute such as {@code name}, or a dotted path
+ * through associations and embeddables such as {@code customer.name} or {@code items.sku}.
+ *
+ * @param key        the filter key
+ * @param steps      the attributes leading to the filtered attribute, in order
+ * @param attribute  the filtered attribute
+ * @param collection whether the path traverses a to-many association
+ */
+record AttributePath(String key, List<Step> steps, SingularAttribute<?, ?> attribute, boolean collection) {
+
+    /**
+     * Resolves the key against the managed type.
+     *
+     * @param type the type the key starts from
+     * @param key  the filter key
+     * @return the resolved path
+     * @throws IllegalArgumentException if a segment of the key is not an attribute, a segment other than the last
+     *                                  is not an association or embeddable, or the last segment is not a basic attribute
+     */
+    static AttributePath resolve(ManagedType<?> type, String key) {
+        String[] segments = key.split("\\.");
+        List<Step> steps = new ArrayList<>();
+        boolean collection = false;
+        boolean embedded = false;
+        ManagedType<?> current = type;
+
+        for (int i = 0; i < segments.length - 1; i++) {
+            Attribute<?, ?> attribute = getAttribute(current, segments[i], key);
+            Type<?> target = attribute instanceof PluralAttribute<?, ?, ?> plural
+                    ? plural.getElementType()
+                    : ((SingularAttribute<?, ?>) attribute).getType();
+            if (!(target instanceof ManagedType<?> managedTarget)) {
+                throw new IllegalArgumentException("'%s' in filter key '%s' is not an association or embeddable"
+                        .formatted(segments[i], key));
+            }
+
+            boolean join = attribute.isAssociation() || attribute.isCollection();
+            if (join && embedded) {
+                throw new IllegalArgumentException("Filter key '%s' traverses an association inside an embeddable".formatted(key));
+            }
+            embedded |= !join;
+            collection |= attribute.isCollection();
+            steps.add(new Step(segments[i], join));
+            current = managedTarget;
+        }
+
+        Attribute<?, ?> last = getAttribute(current, segments[segments.length - 1], key);
+        if (!(last instanceof SingularAttribute<?, ?> singularAttribute)
+                || last.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new IllegalArgumentException("Filter key '%s' is not a basic attribute".formatted(key));
+        }
+        return new AttributePath(key, List.copyOf(steps), singularAttribute, collection);
+    }
+
+    private static Attribute<?, ?> getAttribute(ManagedType<?> type, String name, String key) {
+        try {
+            return type.getAttribute(name);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Filter key '%s' is not an attribute path: no attribute '%s' found"
+                    .formatted(key, name), ex);
+        }
+    }
+
+    /**
+     * An attribute on the way to the filtered attribute.
+     *
+     * @param name the attribute name
+     * @param join whether the attribute is an association that is joined, rather than an embeddable
+     */
+    record Step(String name, boolean join) {
+    }
+}
@@ -0,0 +1,10 @@
+package dev.nhairlahovic.crud.filter;
+
+/**
+ * How filter keys that traverse a to-many association, such as {@code items.sku}, are matched.
+ * Either way, an entity matches once if any element of the collection matches.
+ */
+public enum CollectionMatching {
+    EXISTS,        // default, match in a correlated EXISTS subquery, so every entity is returned at most once
+    JOIN           // join the collection into the query and remove the duplicates with DISTINCT
+}
@@ -0,0 +1,79 @@
+package dev.nhairlahovic.crud.filter;
+
+import jakarta.persistence.metamodel.EntityType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link FilterCriteria} validated against the JPA metamodel of an entity.
+ * Every filter key is resolved to its metamodel attribute path once, when the filter is compiled,
+ * so invalid keys fail at startup instead of on the first search, and the predicates built
+ * by {@link #bind} always have the same shape. Since Hibernate binds the search value as a
+ * query parameter, repeated searches then map to the same query plan.
+ *
+ * @param <T> The entity type the filter applies to.
+ */
+public class CompiledFilter<T> {
+
+    private final FilterCriteria criteria;
+    private final Map<String, AttributePath> paths;
+
+    private CompiledFilter(FilterCriteria criteria, Map<String, AttributePath> paths) {
+        this.criteria = criteria;
+        this.paths = paths;
+    }
+
+    /**
+     * Validates the filter criteria against the entity and compiles them.
+     *
+     * @param criteria   the filter criteria
+     * @param entityType the metamodel of the filtered entity
+     * @param <T>        The entity type the filter applies to.
+     * @return the compiled filter
+     * @throws IllegalStateException if a key does not name a basic attribute of the entity or of an entity
+     *                               or embeddable reachable from it
+     */
+    public static <T> CompiledFilter<T> compile(FilterCriteria criteria, EntityType<T> entityType) {
+        var filterFields = criteria.getFilterFields();
+        if (filterFields.getKeys().isEmpty() && filterFields.getFilterMatchingStrategy() != FilterableFields.FilterMatchingStrategy.CONCAT) {
+            throw new IllegalStateException("No filter keys defined for " + entityType.getName());
+        }
+
+        Map<String, AttributePath> paths = new HashMap<>();
+        for (String key : filterFields.getKeys()) {
+            paths.put(key, resolvePath(entityType, key, criteria.getOperation(), filterFields.getFilterMatchingStrategy()));
+        }
+        return new CompiledFilter<>(criteria, Map.copyOf(paths));
+    }
+
+    /**
+     * Creates the specification matching the given search value.
+     *
+     * @param filterValue the search value
+     * @return the specification
+     */
+    public Specification<T> bind(String filterValue) {
+        return new FilterSpecification<>(criteria, filterValue, (root, key) -> paths.get(key));
+    }
+
+    private static AttributePath resolvePath(EntityType<?> entityType, String key, FilterOperation operation,
+                                             FilterableFields.FilterMatchingStrategy strategy) {
+        AttributePath path;
+        try {
+            path = AttributePath.resolve(entityType, key);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("Invalid filter key for %s: %s".formatted(entityType.getName(), ex.getMessage()), ex);
+        }
+
+        // CONCAT casts every value to a string, the other strategies apply LIKE to the attribute itself
+        if (operation == FilterOperation.LIKE && strategy != FilterableFields.FilterMatchingStrategy.CONCAT
+                && path.attribute().getJavaType() != String.class) {
+            throw new IllegalStateException("Filter key '%s' of %s must be a string attribute to be used with LIKE"
+                    .formatted(key, entityType.getName()));
+        }
+
+        return path;
+    }
+}
@@ -3,19 +3,25 @@ package dev.nhairlahovic.crud.filter;
 import lombok.Getter;
 
 import java.util.List;
+import java.util.Objects;
 
 @Getter
 public class FilterCriteria {
     private final FilterableFields filterFields;
     private final FilterOperation operation;
+    private final CollectionMatching collectionMatching;
 
     public FilterCriteria(String key, FilterOperation operation) {
-        this.filterFields = FilterableFields.of(List.of(key), FilterableFields.FilterMatchingStrategy.SINGLE);
-        this.operation = operation;
+        this(FilterableFields.of(List.of(key), FilterableFields.FilterMatchingStrategy.SINGLE), operation);
     }
 
     public FilterCriteria(FilterableFields fields, FilterOperation operation) {
+        this(fields, operation, CollectionMatching.EXISTS);
+    }
+
+    public FilterCriteria(FilterableFields fields, FilterOperation operation, CollectionMatching collectionMatching) {
         this.filterFields = fields;
         this.operation = operation;
+        this.collectionMatching = Objects.requireNonNull(collectionMatching);
     }
 }
@@ -4,19 +4,59 @@ import jakarta.persistence.criteria.*;
 import lombok.NonNull;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matches entities against {@link FilterCriteria}. Filter keys may be dotted paths through associations and
+ * embeddables; associations are left joined once per path, so keys sharing a path prefix share its joins.
+ * Keys traversing a to-many association are matched as configured by {@link FilterCriteria#getCollectionMatching()}.
+ *
+ * @param <T> The entity type the filter applies to.
+ */
 public class FilterSpecification<T> implements Specification<T> {
 
     private final FilterCriteria criteria;
     private final String filterValue;
+    private final String likePattern;
+    private final PathResolver<T> pathResolver;
 
     public FilterSpecification(FilterCriteria criteria, String filterValue) {
+        this(criteria, filterValue, (root, key) -> AttributePath.resolve(root.getModel(), key));
+    }
+
+    FilterSpecification(FilterCriteria criteria, String filterValue, PathResolver<T> pathResolver) {
         super();
         this.criteria = criteria;
         this.filterValue = filterValue;
+        this.likePattern = "%" + filterValue.toLowerCase() + "%";
+        this.pathResolver = pathResolver;
     }
 
     @Override
     public Predicate toPredicate(@NonNull Root<T> root, CriteriaQuery<?> query, @NonNull CriteriaBuilder builder) {
+        Map<String, AttributePath> paths = new HashMap<>();
+        for (String key : criteria.getFilterFields().getKeys()) {
+            paths.put(key, pathResolver.resolve(root, key));
+        }
+
+        if (paths.values().stream().noneMatch(AttributePath::collection)) {
+            return buildPredicate(new Joins(root, paths), builder);
+        }
+
+        if (criteria.getCollectionMatching() == CollectionMatching.JOIN) {
+            query.distinct(true);
+            return buildPredicate(new Joins(root, paths), builder);
+        }
+
+        // The whole filter moves into the subquery, so keys on the same collection match the same element
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<T> correlated = subquery.correlate(root);
+        subquery.select(builder.literal(1)).where(buildPredicate(new Joins(correlated, paths), builder));
+        return builder.exists(subquery);
+    }
+
+    private Predicate buildPredicate(Joins joins, CriteriaBuilder builder) {
         FilterableFields filterFields = criteria.getFilterFields();
         var keys = filterFields.getKeys();
         var strategy = filterFields.getFilterMatchingStrategy();
@@ -25,7 +65,7 @@ public class FilterSpecification<T> implements Specification<T> {
         return switch (strategy) {
             case SINGLE -> {
                 String key = keys.get(0);
-                yield buildPredicate(root, builder, key, operation, filterValue);
+                yield buildPredicate(joins, builder, key, operation);
             }
 
             case CONCAT -> {
@@ -35,23 +75,23 @@ public class FilterSpecification<T> implements Specification<T> {
                 }
 
                 // Start with first key
-                Expression<String> concatenated = builder.coalesce(root.get(keys.get(0)).as(String.class), "");
+                Expression<String> concatenated = builder.coalesce(joins.get(keys.get(0)).as(String.class), "");
 
                 for (int i = 1; i < keys.size(); i++) {
                     // Coalesce fields to empty string if null
-                    Expression<String> fieldExpr = builder.coalesce(root.get(keys.get(i)).as(String.class), "");
+                    Expression<String> fieldExpr = builder.coalesce(joins.get(keys.get(i)).as(String.class), "");
                     // Add a space before concatenating the next field
                     concatenated = builder.concat(concatenated, builder.literal(" "));
                     concatenated = builder.concat(concatenated, fieldExpr);
                 }
 
-                yield buildPredicateOnExpression(builder, concatenated, operation, filterValue);
+                yield buildPredicateOnExpression(builder, concatenated, operation);
             }
 
             case OR -> {
                 // Apply OR across predicates for each key
                 Predicate[] predicates = keys.stream()
-                        .map(key -> buildPredicate(root, builder, key, operation, filterValue))
+                        .map(key -> buildPredicate(joins, builder, key, operation))
                         .toArray(Predicate[]::new);
                 yield builder.or(predicates);
             }
@@ -59,32 +99,75 @@ public class FilterSpecification<T> implements Specification<T> {
             case AND -> {
                 // Apply AND across predicates for each key
                 Predicate[] predicates = keys.stream()
-                        .map(key -> buildPredicate(root, builder, key, operation, filterValue))
+                        .map(key -> buildPredicate(joins, builder, key, operation))
                         .toArray(Predicate[]::new);
                 yield builder.and(predicates);
             }
         };
     }
 
-    private Predicate buildPredicate(Root<T> root, CriteriaBuilder builder,
-                                     String key, FilterOperation operation, String value) {
+    @SuppressWarnings("unchecked")
+    private Predicate buildPredicate(Joins joins, CriteriaBuilder builder,
+                                     String key, FilterOperation operation) {
+        Path<?> path = joins.get(key);
         return switch (operation) {
-            case EQUALITY -> builder.equal(root.get(key), value);
+            case EQUALITY -> builder.equal(path, filterValue);
             case LIKE -> builder.like(
-                    builder.lower(root.get(key)),
-                    "%" + value.toLowerCase() + "%"
+                    builder.lower((Expression<String>) path),
+                    likePattern
             );
         };
     }
 
     private Predicate buildPredicateOnExpression(CriteriaBuilder builder, Expression<String> expr,
-                                                 FilterOperation operation, String value) {
+                                                 FilterOperation operation) {
         return switch (operation) {
-            case EQUALITY -> builder.equal(expr, value);
+            case EQUALITY -> builder.equal(expr, filterValue);
             case LIKE -> builder.like(
                     builder.lower(expr),
-                    "%" + value.toLowerCase() + "%"
+                    likePattern
             );
         };
     }
+
+    /**
+     * Resolves a filter key to an attribute path of the queried entity.
+     */
+    @FunctionalInterface
+    interface PathResolver<T> {
+        AttributePath resolve(Root<T> root, String key);
+    }
+
+    /**
+     * The joins made for the keys of one predicate, keyed by the path they were made for.
+     */
+    private static final class Joins {
+
+        private final From<?, ?> root;
+        private final Map<String, AttributePath> paths;
+        private final Map<String, From<?, ?>> joins = new HashMap<>();
+
+        private Joins(From<?, ?> root, Map<String, AttributePath> paths) {
+            this.root = root;
+            this.paths = paths;
+        }
+
+        Path<?> get(String key) {
+            AttributePath attributePath = paths.get(key);
+            From<?, ?> from = root;
+            Path<?> path = root;
+            StringBuilder prefix = new StringBuilder();
+            for (AttributePath.Step step : attributePath.steps()) {
+                prefix.append('.').append(step.name());
+                if (step.join()) {
+                    From<?, ?> parent = from;
+                    from = joins.computeIfAbsent(prefix.toString(), ignored -> parent.join(step.name(), JoinType.LEFT));
+                    path = from;
+                } else {
+                    path = path.get(step.name());
+                }
+            }
+            return path.get(attributePath.attribute().getName());
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Binds a {@link QueryDeadline} to every request, so that its SQL statements are cancelled once the client
+ * is no longer waiting for the response. The deadline is taken from the {@value #TIMEOUT_HEADER} header,
+ * the number of milliseconds the client will wait, and is capped by the maximum timeout; requests without
+ * the header get the maximum timeout. A relative timeout is used rather than a point in time, so clock
+ * differences between client and server do not matter.
+ */
+public class DeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final Duration maxTimeout;
+
+    public DeadlineFilter(Duration maxTimeout) {
+        this.maxTimeout = maxTimeout;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long previous = QueryDeadline.begin(requestedTimeout(request));
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryDeadline.end(previous);
+        }
+    }
+
+    private Duration requestedTimeout(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header == null) {
+            return maxTimeout;
+        }
+
+        try {
+            Duration requested = Duration.ofMillis(Long.parseLong(header.trim()));
+            return requested.compareTo(maxTimeout) < 0 ? requested : maxTimeout;
+        } catch (NumberFormatException ex) {
+            return maxTimeout;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * A data source that records the execution of every JDBC statement on the current {@link RequestTiming}
+ * and bounds it by the current {@link QueryDeadline}.
+ * Connections and statements are wrapped in lightweight proxies; statements executed outside
+ * a timed request are passed through without being recorded.
+ * <p>
+ * While a deadline is bound, the query timeout of each statement is lowered to the remaining time, rounded up
+ * to whole seconds as JDBC requires, and restored after the execution; statements started after the deadline
+ * fail with an {@link SQLTimeoutException} without reaching the database.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    public InstrumentedDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(target, method, args);
+            if (result instanceof Statement statement) {
+                Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                        : statement instanceof PreparedStatement ? PreparedStatement.class
+                        : Statement.class;
+                return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                        new Class<?>[]{type}, new StatementHandler(statement));
+            }
+            return result;
+        }
+    }
+
+    private record StatementHandler(Statement target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return InstrumentedDataSource.invoke(target, method, args);
+            }
+
+            Optional<Duration> remaining = QueryDeadline.remaining();
+            int previousTimeout = remaining.isPresent() ? applyDeadline(remaining.get()) : -1;
+
+            long start = System.nanoTime();
+            try {
+                return InstrumentedDataSource.invoke(target, method, args);
+            } finally {
+                RequestTiming.recordStatement(System.nanoTime() - start);
+                if (previousTimeout >= 0) {
+                    // Pooled statements may be reused outside the deadline
+                    target.setQueryTimeout(previousTimeout);
+                }
+            }
+        }
+
+        private int applyDeadline(Duration remaining) throws SQLException {
+            if (remaining.isNegative() || remaining.isZero()) {
+                throw new SQLTimeoutException("Query deadline exceeded");
+            }
+
+            int previousTimeout = target.getQueryTimeout();
+            int seconds = (int) Math.min(Integer.MAX_VALUE, (remaining.toMillis() + 999) / 1000);
+            if (previousTimeout > 0 && previousTimeout <= seconds) {
+                return -1;
+            }
+            target.setQueryTimeout(seconds);
+            return previousTimeout;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps every {@link DataSource} bean in an {@link InstrumentedDataSource}.
+ * Should be registered from a {@code static} bean method so that it is applied before the data source is used.
+ */
+public class InstrumentedDataSourcePostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof InstrumentedDataSource)) {
+            return new InstrumentedDataSource(dataSource);
+        }
+        return bean;
+    }
+}
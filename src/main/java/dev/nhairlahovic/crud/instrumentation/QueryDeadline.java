@@ -0,0 +1,105 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * The point in time by which the SQL statements of the current thread must complete.
+ * A deadline is bound to the thread for the duration of an action, either from the request by
+ * {@link DeadlineFilter} or from the query timeout of a service operation; nested deadlines never extend
+ * an enclosing one. {@link InstrumentedDataSource} turns the remaining time into the query timeout of
+ * every statement, so the driver cancels statements that run past the deadline.
+ */
+public final class QueryDeadline {
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private QueryDeadline() {
+    }
+
+    /**
+     * Runs the action with a deadline of {@code timeout} from now, or the current deadline if that is earlier.
+     *
+     * @param timeout the time the action's statements may take
+     * @param action  the action to run
+     * @param <V>     The type of the result.
+     * @return the result of the action
+     */
+    public static <V> V within(Duration timeout, Supplier<V> action) {
+        Long previous = begin(timeout);
+        try {
+            return action.get();
+        } finally {
+            end(previous);
+        }
+    }
+
+    /**
+     * Returns the time left until the deadline of the current thread, negative once it has passed.
+     *
+     * @return the remaining time, or empty if no deadline is bound
+     */
+    public static Optional<Duration> remaining() {
+        Long deadline = CURRENT.get();
+        return deadline == null ? Optional.empty() : Optional.of(Duration.ofNanos(deadline - System.nanoTime()));
+    }
+
+    /**
+     * Returns whether the deadline of the current thread has passed.
+     */
+    public static boolean isExpired() {
+        Long deadline = CURRENT.get();
+        return deadline != null && deadline - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Wraps the action so that it runs with the deadline of the calling thread, for handing work to other threads.
+     *
+     * @param action the action to wrap
+     * @param <V>    The type of the result.
+     * @return the wrapped action, or the action itself if no deadline is bound
+     */
+    public static <V> Supplier<V> propagate(Supplier<V> action) {
+        Long deadline = CURRENT.get();
+        if (deadline == null) {
+            return action;
+        }
+        return () -> bound(deadline, action);
+    }
+
+    /**
+     * Binds a deadline of {@code timeout} from now, or keeps the current deadline if that is earlier.
+     *
+     * @return the previous deadline, to be passed to {@link #end}
+     */
+    static Long begin(Duration timeout) {
+        long deadline = System.nanoTime() + saturatedNanos(timeout);
+        Long previous = CURRENT.get();
+        CURRENT.set(previous != null && previous - deadline < 0 ? previous : deadline);
+        return previous;
+    }
+
+    static void end(Long previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    private static <V> V bound(long deadline, Supplier<V> action) {
+        Long previous = CURRENT.get();
+        CURRENT.set(deadline);
+        try {
+            return action.get();
+        } finally {
+            end(previous);
+        }
+    }
+
+    private static long saturatedNanos(Duration timeout) {
+        // Keep far deadlines from overflowing System.nanoTime arithmetic
+        return timeout.compareTo(Duration.ofDays(1)) > 0 ? Duration.ofDays(1).toNanos() : timeout.toNanos();
+    }
+}
@@ -0,0 +1,117 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Collects where the time of a single request is spent: the number and duration of JDBC statements,
+ * and the time spent in named stages such as {@code service} and {@code mapping}.
+ * A timing is bound to the request thread by {@link ServerTimingFilter}; while no timing is bound,
+ * recording is a no-op, so instrumented code costs next to nothing when the feature is disabled.
+ * Work running on other threads, such as parallel queries, is not recorded.
+ */
+public class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+    private long lastStageEndNanos = startNanos;
+    private int statementCount;
+    private long statementNanos;
+
+    RequestTiming() {
+    }
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static Optional<RequestTiming> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Runs the action and adds its duration to the given stage of the current request, if it is being timed.
+     *
+     * @param stage  the name of the stage, used as the {@code Server-Timing} metric name
+     * @param action the action to time
+     * @param <T>    The type of the result.
+     * @return the result of the action
+     */
+    public static <T> T time(String stage, Supplier<T> action) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return action.get();
+        }
+
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long end = System.nanoTime();
+            timing.stageNanos.merge(stage, end - start, Long::sum);
+            timing.lastStageEndNanos = end;
+        }
+    }
+
+    /**
+     * Records a JDBC statement execution on the current request, if it is being timed.
+     *
+     * @param durationNanos the execution time of the statement
+     */
+    public static void recordStatement(long durationNanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.statementCount++;
+            timing.statementNanos += durationNanos;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public long getStatementNanos() {
+        return statementNanos;
+    }
+
+    public Map<String, Long> getStageNanos() {
+        return Collections.unmodifiableMap(stageNanos);
+    }
+
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the time since the last timed stage completed,
+     * which for CRUD endpoints is dominated by response serialization.
+     */
+    public long getNanosSinceLastStage() {
+        return System.nanoTime() - lastStageEndNanos;
+    }
+
+    String toServerTimingHeader(long totalNanos) {
+        StringJoiner header = new StringJoiner(", ");
+        header.add("db;dur=%s;desc=\"%d statements\"".formatted(millis(statementNanos), statementCount));
+        stageNanos.forEach((stage, nanos) -> header.add(stage + ";dur=" + millis(nanos)));
+        header.add("total;dur=" + millis(totalNanos));
+        return header.toString();
+    }
+
+    static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,138 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+
+/**
+ * Times every request and reports the result in a {@code Server-Timing} response header.
+ * The header contains the JDBC statement count and time recorded by {@link InstrumentedDataSource},
+ * the stages recorded through {@link RequestTiming#time} and the total time until the response body is written.
+ * Requests slower than the threshold are also logged as a single structured line, which adds the time spent
+ * serializing the body.
+ * <p>
+ * The response is not buffered: the header is added just before the body is written, when the response is
+ * about to be committed, so it cannot include the serialization time. Asynchronous requests, such as streamed
+ * responses, are neither timed nor logged, as their body is written after the filter has returned.
+ */
+@Slf4j
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final Duration slowRequestThreshold;
+
+    public ServerTimingFilter(Duration slowRequestThreshold) {
+        this.slowRequestThreshold = slowRequestThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        var responseWrapper = new TimingHeaderResponseWrapper(response, timing);
+        try {
+            filterChain.doFilter(request, responseWrapper);
+        } finally {
+            RequestTiming.end();
+            if (request.isAsyncStarted()) {
+                // Streaming and other asynchronous responses are written after the filter returns, so they are not timed
+                responseWrapper.skipTimingHeader();
+            } else {
+                finish(request, responseWrapper, timing);
+            }
+        }
+    }
+
+    private void finish(HttpServletRequest request, TimingHeaderResponseWrapper response, RequestTiming timing) {
+        long totalNanos = timing.getElapsedNanos();
+        long serializationNanos = timing.getNanosSinceLastStage();
+        // Responses without a body never ask for the output stream
+        response.addTimingHeader();
+        if (totalNanos >= slowRequestThreshold.toNanos()) {
+            logSlowRequest(request, response.getStatus(), timing, totalNanos, serializationNanos);
+        }
+    }
+
+    private void logSlowRequest(HttpServletRequest request, int status, RequestTiming timing,
+                                long totalNanos, long serializationNanos) {
+        StringBuilder stages = new StringBuilder();
+        timing.getStageNanos().forEach((stage, nanos) ->
+                stages.append(' ').append(stage).append("Ms=").append(RequestTiming.millis(nanos)));
+
+        log.warn("Slow request method={} uri={} status={} totalMs={} statements={} dbMs={}{} serializationMs={}",
+                request.getMethod(), request.getRequestURI(), status, RequestTiming.millis(totalNanos),
+                timing.getStatementCount(), RequestTiming.millis(timing.getStatementNanos()),
+                stages, RequestTiming.millis(serializationNanos));
+    }
+
+    /**
+     * Adds the {@code Server-Timing} header once, right before the body is written or the response is committed.
+     */
+    private static class TimingHeaderResponseWrapper extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private volatile boolean headerAdded;
+
+        TimingHeaderResponseWrapper(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            addTimingHeader();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            addTimingHeader();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            addTimingHeader();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            addTimingHeader();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            addTimingHeader();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            addTimingHeader();
+            super.sendRedirect(location);
+        }
+
+        void skipTimingHeader() {
+            headerAdded = true;
+        }
+
+        void addTimingHeader() {
+            if (!headerAdded && !isCommitted()) {
+                headerAdded = true;
+                setHeader(SERVER_TIMING_HEADER, timing.toServerTimingHeader(timing.getElapsedNanos()));
+            }
+        }
+    }
+}
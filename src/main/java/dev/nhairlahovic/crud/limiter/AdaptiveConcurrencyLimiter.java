@@ -0,0 +1,163 @@
+package dev.nhairlahovic.crud.limiter;
+
+import dev.nhairlahovic.crud.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits the number of concurrent requests for a single resource type and adapts the limit to observed latency.
+ * The limit follows a gradient algorithm: while the latency of recent requests stays close to the long-term
+ * average the limit grows, and as soon as requests start queueing in the database and latency rises the limit
+ * shrinks proportionally. Requests over the limit are rejected immediately with
+ * {@link ConcurrencyLimitExceededException} instead of queueing.
+ * <p>
+ * Each {@link OperationClass} may only use its share of the limit, so searches are shed before writes
+ * and writes before reads.
+ * <p>
+ * The current limit, the in-flight count and the number of rejected requests are published as
+ * {@code crud.concurrency.limit}, {@code crud.concurrency.in.flight} and {@code crud.concurrency.rejected}.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double RTT_TOLERANCE = 1.5;
+    private static final int LONG_RTT_WINDOW = 600;
+    private static final int LONG_RTT_WARMUP = 10;
+
+    private final String resourceType;
+    private final int minLimit;
+    private final int maxLimit;
+    private final Duration retryAfter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<OperationClass, Counter> rejected = new EnumMap<>(OperationClass.class);
+
+    private volatile double limit;
+    private double longRttNanos;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(String resourceType) {
+        this(resourceType, 20, 4, 500, Duration.ofSeconds(1), Metrics.globalRegistry);
+    }
+
+    public AdaptiveConcurrencyLimiter(String resourceType, int initialLimit, int minLimit, int maxLimit,
+                                      Duration retryAfter, MeterRegistry meterRegistry) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit, got %d, %d, %d"
+                    .formatted(minLimit, initialLimit, maxLimit));
+        }
+
+        this.resourceType = resourceType;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.retryAfter = retryAfter;
+        this.limit = initialLimit;
+
+        Gauge.builder("crud.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .tag("resource", resourceType)
+                .register(meterRegistry);
+
+        for (OperationClass operation : OperationClass.values()) {
+            Gauge.builder("crud.concurrency.limit", this, limiter -> limiter.getLimit(operation))
+                    .tag("resource", resourceType)
+                    .tag("operation", operation.name().toLowerCase())
+                    .register(meterRegistry);
+            rejected.put(operation, Counter.builder("crud.concurrency.rejected")
+                    .tag("resource", resourceType)
+                    .tag("operation", operation.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Acquires a slot for a request of the given class.
+     * The returned permit must be closed when the request completes.
+     *
+     * @param operation the class of the request
+     * @return the acquired permit
+     * @throws ConcurrencyLimitExceededException if the limit for the class has been reached
+     */
+    public Permit acquire(OperationClass operation) throws ConcurrencyLimitExceededException {
+        int allowed = getLimit(operation);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                rejected.get(operation).increment();
+                throw new ConcurrencyLimitExceededException(resourceType, retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(System.nanoTime(), current + 1);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of concurrent requests of the given class that are currently admitted.
+     *
+     * @param operation the class of the request
+     * @return the current limit for the class
+     */
+    public int getLimit(OperationClass operation) {
+        return Math.max(1, (int) (limit * operation.getLimitShare()));
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        samples++;
+        if (samples <= LONG_RTT_WARMUP) {
+            longRttNanos += (rttNanos - longRttNanos) / samples;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2 / (LONG_RTT_WINDOW + 1);
+        }
+
+        // After a sustained latency drop the long-term average lags behind, let it catch up quickly
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Only grow when the limit is actually being used, otherwise it would drift up while idle
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRttNanos / rttNanos));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    /**
+     * A slot held by an in-flight request. Closing it releases the slot and records the request latency.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            onSample(Math.max(1, System.nanoTime() - startNanos), inFlightAtStart);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package dev.nhairlahovic.crud.limiter;
+
+import lombok.Getter;
+
+/**
+ * Classes of CRUD operations that share a concurrency limit.
+ * Each class may only use a share of the current limit, so that when the limit shrinks
+ * expensive searches are shed first and cheap reads last.
+ */
+@Getter
+public enum OperationClass {
+    READ(1.0),      // lookups by id and unfiltered pages
+    WRITE(0.9),     // create, update, patch and delete
+    SEARCH(0.5);    // filtered queries, typically LIKE scans
+
+    private final double limitShare;
+
+    OperationClass(double limitShare) {
+        this.limitShare = limitShare;
+    }
+}
@@ -2,6 +2,7 @@ package dev.nhairlahovic.crud.mapper;
 
 import dev.nhairlahovic.crud.exception.PatchException;
 import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.PatchRequest;
 import tools.jackson.core.JacksonException;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
@@ -9,6 +10,8 @@ import tools.jackson.databind.ObjectMapper;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This interface defines the operations for mapping between entities and their respective
@@ -56,46 +59,69 @@ public interface ResourceMapper<E extends BaseEntity<I>, R, D, I> {
     }
 
     /**
-     * Applies a partial update to an existing entity using only the fields present in the raw JSON request.
-     * Deserializes the request into an intermediate entity via {@link #mapToEntity}, then copies
-     * only the present patchable fields onto the target entity. Explicit {@code null} values clear the field;
-     * absent fields are left unchanged.
+     * Applies a partial update to an existing entity using only the fields present in the patch request.
+     * The request DTO is converted through {@link #mapToEntity} once, and each present patchable field is copied
+     * from the converted entity onto the existing one; explicit {@code null} values clear the field and absent
+     * fields are left unchanged.
      *
      * @param resource        The existing entity to patch.
-     * @param rawRequest      The raw JSON patch request used to determine which fields are present.
+     * @param patchRequest    The patch request with the names of the fields present in the body.
      * @param patchableFields Map of DTO field name to entity field name for fields eligible for patching.
      * @return The patched entity.
      */
-    default E patchEntity(E resource, JsonNode rawRequest, Map<String, String> patchableFields) {
-        try {
-            R patchRequest = OBJECT_MAPPER.treeToValue(rawRequest, requestType());
-            E patchSource = mapToEntity(patchRequest);
-            Class<?> clazz = resource.getClass();
+    default E patchEntity(E resource, PatchRequest<R> patchRequest, Map<String, String> patchableFields) {
+        R request = patchRequest.getRequest();
+        E mappedRequest = null;
 
-            for (Map.Entry<String, String> entry : patchableFields.entrySet()) {
-                var dtoFieldName = entry.getKey();
-                var entityFieldName = entry.getValue();
+        for (Map.Entry<String, String> entry : patchableFields.entrySet()) {
+            var dtoFieldName = entry.getKey();
+            var entityFieldName = entry.getValue();
 
-                if (!rawRequest.has(dtoFieldName)) {
-                    continue;
-                }
+            if (!patchRequest.isPresent(dtoFieldName)) {
+                continue;
+            }
 
-                try {
-                    var field = clazz.getDeclaredField(entityFieldName);
-                    field.setAccessible(true);
-                    var patchedValue = rawRequest.get(dtoFieldName).isNull() ? null : field.get(patchSource);
-                    field.set(resource, patchedValue);
-                } catch (Exception ex) {
-                    throw new PatchException("Failed to patch field '" + entityFieldName);
+            try {
+                var dtoField = request.getClass().getDeclaredField(dtoFieldName);
+                dtoField.setAccessible(true);
+                var entityField = resource.getClass().getDeclaredField(entityFieldName);
+                entityField.setAccessible(true);
+
+                Object patchedValue = null;
+                if (dtoField.get(request) != null) {
+                    if (mappedRequest == null) {
+                        mappedRequest = mapToEntity(request);
+                    }
+                    patchedValue = entityField.get(mappedRequest);
                 }
+                entityField.set(resource, patchedValue);
+            } catch (Exception ex) {
+                throw new PatchException("Failed to patch field '" + entityFieldName);
             }
-        } catch (JacksonException ex) {
-            throw new PatchException("Invalid patch request");
         }
 
         return resource;
     }
 
+    /**
+     * Applies a partial update to an existing entity using only the fields present in the raw JSON request.
+     *
+     * @deprecated Bind the body to a {@link PatchRequest} and use {@link #patchEntity(BaseEntity, PatchRequest, Map)},
+     * which does not parse the body twice.
+     */
+    @Deprecated
+    default E patchEntity(E resource, JsonNode rawRequest, Map<String, String> patchableFields) {
+        try {
+            R request = OBJECT_MAPPER.treeToValue(rawRequest, requestType());
+            Set<String> presentFields = rawRequest.properties().stream()
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+            return patchEntity(resource, PatchRequest.of(request, presentFields), patchableFields);
+        } catch (JacksonException ex) {
+            throw new PatchException("Invalid patch request");
+        }
+    }
+
     @SuppressWarnings("unchecked")
     default Class<R> requestType() {
         for (Type genericInterface : getClass().getGenericInterfaces()) {
@@ -0,0 +1,115 @@
+package dev.nhairlahovic.crud.memory;
+
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reads the singular attributes of loaded entities by name, through the fields or getters
+ * the JPA metamodel maps them to.
+ *
+ * @param <T> The entity type.
+ */
+public final class AttributeReader<T> {
+
+    private final Class<T> entityClass;
+    private final Map<String, Function<T, Object>> readers;
+    private final Map<String, Class<?>> types;
+    private final String idAttribute;
+
+    private AttributeReader(Class<T> entityClass, Map<String, Function<T, Object>> readers,
+                            Map<String, Class<?>> types, String idAttribute) {
+        this.entityClass = entityClass;
+        this.readers = readers;
+        this.types = types;
+        this.idAttribute = idAttribute;
+    }
+
+    /**
+     * Creates a reader for the singular attributes of the entity.
+     *
+     * @param entityType the metamodel of the entity
+     * @param <T>        The entity type.
+     * @return the attribute reader
+     */
+    public static <T> AttributeReader<T> of(EntityType<T> entityType) {
+        Map<String, Function<T, Object>> readers = new HashMap<>();
+        Map<String, Class<?>> types = new HashMap<>();
+        String idAttribute = null;
+
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            readers.put(attribute.getName(), accessor(attribute.getJavaMember()));
+            types.put(attribute.getName(), attribute.getJavaType());
+            if (attribute.isId()) {
+                idAttribute = attribute.getName();
+            }
+        }
+
+        return new AttributeReader<>(entityType.getJavaType(), Map.copyOf(readers), Map.copyOf(types), idAttribute);
+    }
+
+    /**
+     * Reads the attribute of the entity.
+     *
+     * @param entity    the entity
+     * @param attribute the attribute name
+     * @return the attribute value, may be {@code null}
+     * @throws IllegalArgumentException if the entity has no singular attribute with the name
+     */
+    public Object read(T entity, String attribute) {
+        return reader(attribute).apply(entity);
+    }
+
+    /**
+     * Returns the function reading the attribute.
+     *
+     * @param attribute the attribute name
+     * @return the function reading the attribute from an entity
+     * @throws IllegalArgumentException if the entity has no singular attribute with the name
+     */
+    public Function<T, Object> reader(String attribute) {
+        Function<T, Object> reader = readers.get(attribute);
+        if (reader == null) {
+            throw new IllegalArgumentException("No attribute '%s' found for %s".formatted(attribute, entityClass.getSimpleName()));
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the Java type of the attribute.
+     *
+     * @param attribute the attribute name
+     * @return the attribute type
+     * @throws IllegalArgumentException if the entity has no singular attribute with the name
+     */
+    public Class<?> getJavaType(String attribute) {
+        reader(attribute);
+        return types.get(attribute);
+    }
+
+    /**
+     * Returns the name of the id attribute, or {@code null} if the entity uses an id class.
+     */
+    public String getIdAttribute() {
+        return idAttribute;
+    }
+
+    static <T> Function<T, Object> accessor(Member member) {
+        if (member instanceof Field field) {
+            ReflectionUtils.makeAccessible(field);
+            return entity -> ReflectionUtils.getField(field, entity);
+        }
+        if (member instanceof Method method) {
+            ReflectionUtils.makeAccessible(method);
+            return entity -> ReflectionUtils.invokeMethod(method, entity);
+        }
+        throw new IllegalStateException("Unsupported attribute member: " + member);
+    }
+}
@@ -0,0 +1,204 @@
+package dev.nhairlahovic.crud.memory;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.OneToOne;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tells whether an update would change the stored state of an entity, by comparing the persistent attributes
+ * of the loaded entity with those of the entity about to be saved.
+ * <ul>
+ *     <li>The id and version attributes are ignored.</li>
+ *     <li>Basic values are compared with {@code equals}, except decimals, which compare by value, and arrays,
+ *     which compare by content.</li>
+ *     <li>Associations are compared by the ids of the referenced entities, without initializing lazy proxies.</li>
+ *     <li>Collections are compared by their elements, with entities again compared by id. Collections on the
+ *     inverse side of a relationship ({@code mappedBy}) are ignored, as they are not stored with the entity.</li>
+ *     <li>Embedded values are compared with {@code equals}, so embeddables without value equality always
+ *     count as changed.</li>
+ * </ul>
+ *
+ * @param <T> The entity type.
+ */
+public final class ChangeDetector<T> {
+
+    private final List<Function<T, Object>> readers;
+    private final List<Function<Object, Object>> normalizers;
+
+    private ChangeDetector(List<Function<T, Object>> readers, List<Function<Object, Object>> normalizers) {
+        this.readers = readers;
+        this.normalizers = normalizers;
+    }
+
+    /**
+     * Creates a change detector for the persistent attributes of the entity.
+     *
+     * @param entityType the metamodel of the entity
+     * @param <T>        The entity type.
+     * @return the change detector
+     */
+    public static <T> ChangeDetector<T> of(EntityType<T> entityType) {
+        AttributeReader<T> reader = AttributeReader.of(entityType);
+        List<Function<T, Object>> readers = new ArrayList<>();
+        List<Function<Object, Object>> normalizers = new ArrayList<>();
+
+        for (SingularAttribute<? super T, ?> attribute : entityType.getSingularAttributes()) {
+            if (attribute.isId() || attribute.isVersion() || isInverse(attribute)) {
+                continue;
+            }
+            readers.add(reader.reader(attribute.getName()));
+            normalizers.add(attribute.getType() instanceof EntityType<?> target ? identifier(target) : InMemoryFilter::normalize);
+        }
+
+        for (PluralAttribute<? super T, ?, ?> attribute : entityType.getPluralAttributes()) {
+            if (isInverse(attribute)) {
+                continue;
+            }
+            readers.add(AttributeReader.accessor(attribute.getJavaMember()));
+            Function<Object, Object> element = attribute.getElementType() instanceof EntityType<?> target
+                    ? identifier(target)
+                    : InMemoryFilter::normalize;
+            normalizers.add(value -> elements(attribute.getCollectionType(), value, element));
+        }
+
+        return new ChangeDetector<>(List.copyOf(readers), List.copyOf(normalizers));
+    }
+
+    /**
+     * Returns whether saving the updated entity would leave the stored state of the existing entity unchanged.
+     *
+     * @param existing the entity as currently stored
+     * @param updated  the entity about to be saved
+     * @return {@code true} if no persistent attribute differs
+     */
+    public boolean isUnchanged(T existing, T updated) {
+        for (int i = 0; i < readers.size(); i++) {
+            Function<T, Object> reader = readers.get(i);
+            Function<Object, Object> normalizer = normalizers.get(i);
+            if (!Objects.deepEquals(normalizer.apply(reader.apply(existing)), normalizer.apply(reader.apply(updated)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether saving the updated entity would leave the stored state of the existing entity unchanged,
+     * comparing with the state the existing entity was loaded with rather than its current state. The updated
+     * entity may therefore be the existing, managed entity modified in place.
+     * <p>
+     * Without an entity manager, or if the existing entity is not managed by it, the entities are compared as
+     * with {@link #isUnchanged(Object, Object)}, and an entity compared with itself always counts as changed.
+     *
+     * @param entityManager the entity manager that loaded the existing entity, may be {@code null}
+     * @param existing      the entity as loaded
+     * @param updated       the entity about to be saved
+     * @return {@code true} if no persistent attribute differs from the loaded state
+     */
+    public boolean isUnchanged(EntityManager entityManager, T existing, T updated) {
+        Optional<T> loaded = entityManager == null ? Optional.empty() : loadedState(entityManager, existing);
+        if (loaded.isEmpty()) {
+            return existing != updated && isUnchanged(existing, updated);
+        }
+        return !hasDirtyCollection(existing) && !hasDirtyCollection(updated) && isUnchanged(loaded.get(), updated);
+    }
+
+    /**
+     * Rebuilds a detached copy of the entity from the state Hibernate recorded when loading it.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Optional<T> loadedState(EntityManager entityManager, T entity) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityEntry entry = session.getPersistenceContextInternal().getEntry(entity);
+        if (entry == null || entry.getLoadedState() == null) {
+            return Optional.empty();
+        }
+
+        EntityPersister persister = entry.getPersister();
+        T loaded = (T) persister.instantiate(entry.getId(), session);
+        persister.setValues(loaded, entry.getLoadedState());
+        return Optional.of(loaded);
+    }
+
+    /**
+     * Collections modified in place share their instance with the loaded state, so they are checked separately.
+     */
+    private boolean hasDirtyCollection(T entity) {
+        for (Function<T, Object> reader : readers) {
+            if (reader.apply(entity) instanceof PersistentCollection<?> collection && collection.isDirty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInverse(Attribute<?, ?> attribute) {
+        if (!(attribute.getJavaMember() instanceof AnnotatedElement member)) {
+            return false;
+        }
+        OneToOne oneToOne = member.getAnnotation(OneToOne.class);
+        OneToMany oneToMany = member.getAnnotation(OneToMany.class);
+        ManyToMany manyToMany = member.getAnnotation(ManyToMany.class);
+        return oneToOne != null && !oneToOne.mappedBy().isEmpty()
+                || oneToMany != null && !oneToMany.mappedBy().isEmpty()
+                || manyToMany != null && !manyToMany.mappedBy().isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Function<Object, Object> identifier(EntityType<E> target) {
+        AttributeReader<E> reader = AttributeReader.of(target);
+        String idAttribute = reader.getIdAttribute();
+        return value -> {
+            if (value == null) {
+                return null;
+            }
+            LazyInitializer proxy = HibernateProxy.extractLazyInitializer(value);
+            if (proxy != null) {
+                return proxy.getIdentifier();
+            }
+            // Entities with an id class have no single id attribute; fall back to their own equality
+            return idAttribute != null ? reader.read((E) value, idAttribute) : value;
+        };
+    }
+
+    private static Object elements(PluralAttribute.CollectionType type, Object value, Function<Object, Object> element) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> normalized = new HashMap<>();
+            map.forEach((key, item) -> normalized.put(InMemoryFilter.normalize(key), element.apply(item)));
+            return normalized;
+        }
+
+        Collection<?> items = (Collection<?>) value;
+        return switch (type) {
+            case LIST -> items.stream().map(element).toList();
+            case SET -> items.stream().map(element).collect(Collectors.toSet());
+            // Bags keep duplicates but no order
+            default -> items.stream().map(element).collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        };
+    }
+}
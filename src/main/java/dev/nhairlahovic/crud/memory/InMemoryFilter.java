@@ -0,0 +1,201 @@
+package dev.nhairlahovic.crud.memory;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.filter.FilterableFields;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates {@link FilterCriteria} against loaded entities with the same semantics as
+ * {@link dev.nhairlahovic.crud.filter.FilterSpecification}:
+ * <ul>
+ *     <li>{@code EQUALITY} compares the attribute with the search value converted to the attribute type,</li>
+ *     <li>{@code LIKE} matches the lower-cased attribute against {@code %value%}, where {@code %} and {@code _}
+ *     in the search value act as wildcards and no escape character is defined,</li>
+ *     <li>{@code CONCAT} joins the attributes, converted to strings and with {@code null} as an empty string,
+ *     with single spaces,</li>
+ *     <li>{@code null} attributes never match, as in SQL.</li>
+ * </ul>
+ * String comparisons are exact, so results match the database when its collation is case and accent sensitive.
+ *
+ * @param <T> The entity type.
+ */
+public final class InMemoryFilter<T> {
+
+    private final FilterCriteria criteria;
+    private final AttributeReader<T> reader;
+    private final List<Function<T, Object>> keyReaders;
+
+    private InMemoryFilter(FilterCriteria criteria, AttributeReader<T> reader) {
+        this.criteria = criteria;
+        this.reader = reader;
+        this.keyReaders = criteria.getFilterFields().getKeys().stream()
+                .map(reader::reader)
+                .toList();
+    }
+
+    /**
+     * Compiles the filter criteria for the entity.
+     *
+     * @param criteria the filter criteria
+     * @param reader   the reader for the attributes of the entity
+     * @param <T>      The entity type.
+     * @return the compiled filter
+     * @throws IllegalArgumentException if a key does not name a singular attribute of the entity
+     */
+    public static <T> InMemoryFilter<T> compile(FilterCriteria criteria, AttributeReader<T> reader) {
+        return new InMemoryFilter<>(criteria, reader);
+    }
+
+    /**
+     * Creates the predicate matching the given search value.
+     *
+     * @param filterValue the search value
+     * @return the predicate
+     */
+    public Predicate<T> bind(String filterValue) {
+        FilterableFields filterFields = criteria.getFilterFields();
+        List<String> keys = filterFields.getKeys();
+
+        return switch (filterFields.getFilterMatchingStrategy()) {
+            case SINGLE -> attributeMatcher(keys.get(0), keyReaders.get(0), filterValue);
+
+            case CONCAT -> {
+                if (keys.isEmpty()) {
+                    yield entity -> true;
+                }
+                Predicate<Object> matcher = criteria.getOperation() == FilterOperation.LIKE
+                        ? likeMatcher(filterValue)
+                        : filterValue::equals;
+                yield entity -> matcher.test(concat(entity));
+            }
+
+            case OR -> {
+                Predicate<T> predicate = entity -> false;
+                for (int i = 0; i < keys.size(); i++) {
+                    predicate = predicate.or(attributeMatcher(keys.get(i), keyReaders.get(i), filterValue));
+                }
+                yield predicate;
+            }
+
+            case AND -> {
+                Predicate<T> predicate = entity -> true;
+                for (int i = 0; i < keys.size(); i++) {
+                    predicate = predicate.and(attributeMatcher(keys.get(i), keyReaders.get(i), filterValue));
+                }
+                yield predicate;
+            }
+        };
+    }
+
+    /**
+     * Returns the attribute that an equality lookup can be served from an index on, if the criteria are
+     * a single key compared for equality.
+     *
+     * @return the indexable attribute
+     */
+    public Optional<String> getIndexableAttribute() {
+        FilterableFields filterFields = criteria.getFilterFields();
+        if (criteria.getOperation() == FilterOperation.EQUALITY
+                && filterFields.getFilterMatchingStrategy() == FilterableFields.FilterMatchingStrategy.SINGLE) {
+            return Optional.of(filterFields.getKeys().get(0));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Converts the search value to the type of the attribute, the way it is bound in an equality query.
+     *
+     * @param attribute   the attribute name
+     * @param filterValue the search value
+     * @return the converted value, or empty if the value cannot be converted and nothing matches
+     */
+    Optional<Object> convert(String attribute, String filterValue) {
+        Class<?> type = reader.getJavaType(attribute);
+        if (type == String.class) {
+            return Optional.of(filterValue);
+        }
+
+        try {
+            return Optional.ofNullable(DefaultConversionService.getSharedInstance().convert(filterValue, type))
+                    .map(InMemoryFilter::normalize);
+        } catch (ConversionException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Normalizes a value for equality checks and index keys, so that values the database
+     * considers equal are also equal in memory.
+     */
+    static Object normalize(Object value) {
+        return value instanceof BigDecimal decimal ? decimal.stripTrailingZeros() : value;
+    }
+
+    private Predicate<T> attributeMatcher(String attribute, Function<T, Object> keyReader, String filterValue) {
+        if (criteria.getOperation() == FilterOperation.LIKE) {
+            Predicate<Object> matcher = likeMatcher(filterValue);
+            return entity -> matcher.test(keyReader.apply(entity));
+        }
+
+        Optional<Object> expected = convert(attribute, filterValue);
+        if (expected.isEmpty()) {
+            return entity -> false;
+        }
+        Object value = expected.get();
+        return entity -> Objects.equals(value, normalize(keyReader.apply(entity)));
+    }
+
+    private String concat(T entity) {
+        StringBuilder concatenated = new StringBuilder();
+        for (int i = 0; i < keyReaders.size(); i++) {
+            if (i > 0) {
+                concatenated.append(' ');
+            }
+            Object value = keyReaders.get(i).apply(entity);
+            if (value != null) {
+                concatenated.append(value);
+            }
+        }
+        return concatenated.toString();
+    }
+
+    private static Predicate<Object> likeMatcher(String filterValue) {
+        String needle = filterValue.toLowerCase();
+        if (needle.indexOf('%') < 0 && needle.indexOf('_') < 0) {
+            return value -> value != null && value.toString().toLowerCase().contains(needle);
+        }
+
+        Pattern pattern = Pattern.compile(toRegex(needle), Pattern.DOTALL);
+        return value -> value != null && pattern.matcher(value.toString().toLowerCase()).matches();
+    }
+
+    private static String toRegex(String likeValue) {
+        StringBuilder regex = new StringBuilder(".*");
+        StringBuilder literal = new StringBuilder();
+        for (char c : likeValue.toCharArray()) {
+            if (c == '%' || c == '_') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '%' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return regex.append(".*").toString();
+    }
+}
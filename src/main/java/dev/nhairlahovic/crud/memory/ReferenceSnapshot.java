@@ -0,0 +1,137 @@
+package dev.nhairlahovic.crud.memory;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * An immutable in-memory copy of a small table, indexed by id and by the attribute of an equality filter.
+ * Snapshots are never modified; a write replaces the whole snapshot with a freshly loaded one.
+ * The entities are shared by all readers and must not be modified.
+ *
+ * @param <T>  The entity type.
+ * @param <ID> The type of the identifier of the entity.
+ */
+public final class ReferenceSnapshot<T, ID> {
+
+    private final List<T> rows;
+    private final Map<Object, T> byId;
+    private final AttributeReader<T> reader;
+    private final InMemoryFilter<T> filter;
+    private final String indexedAttribute;
+    private final Map<Object, List<T>> index;
+
+    /**
+     * Creates a snapshot of the given rows.
+     *
+     * @param rows   the rows, in id order
+     * @param reader the reader for the attributes of the entity
+     * @param filter the filter of the service, or {@code null} if the service has no filter
+     */
+    public ReferenceSnapshot(List<T> rows, AttributeReader<T> reader, InMemoryFilter<T> filter) {
+        if (reader.getIdAttribute() == null) {
+            throw new IllegalArgumentException("Reference snapshots require a single id attribute");
+        }
+
+        this.rows = List.copyOf(rows);
+        this.reader = reader;
+        this.filter = filter;
+
+        Map<Object, T> ids = new HashMap<>();
+        for (T row : this.rows) {
+            ids.put(reader.read(row, reader.getIdAttribute()), row);
+        }
+        this.byId = Collections.unmodifiableMap(ids);
+
+        this.indexedAttribute = filter != null ? filter.getIndexableAttribute().orElse(null) : null;
+        this.index = indexedAttribute != null ? buildIndex(indexedAttribute) : Map.of();
+    }
+
+    public Optional<T> findById(ID id) {
+        return Optional.ofNullable(byId.get(id));
+    }
+
+    /**
+     * Returns the entities with the given ids, in no particular order; ids without an entity are skipped.
+     */
+    public List<T> findAllById(Collection<ID> ids) {
+        List<T> found = new ArrayList<>(ids.size());
+        for (ID id : ids) {
+            T row = byId.get(id);
+            if (row != null) {
+                found.add(row);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the entities matching the filter value, in id order.
+     *
+     * @param filterValue the search value, or {@code null} to return all entities
+     * @return the matching entities
+     */
+    public List<T> findAll(String filterValue) {
+        if (filterValue == null || filter == null) {
+            return rows;
+        }
+
+        if (indexedAttribute != null) {
+            return filter.convert(indexedAttribute, filterValue)
+                    .map(value -> index.getOrDefault(value, List.of()))
+                    .orElse(List.of());
+        }
+
+        Predicate<T> predicate = filter.bind(filterValue);
+        return rows.stream().filter(predicate).toList();
+    }
+
+    /**
+     * Returns a page of the entities matching the filter value.
+     *
+     * @param pageable    the requested page
+     * @param filterValue the search value, or {@code null} to return all entities
+     * @return the requested page
+     */
+    public Page<T> findPage(Pageable pageable, String filterValue) {
+        List<T> matching = findAll(filterValue);
+        if (pageable.getSort().isSorted()) {
+            matching = new ArrayList<>(matching);
+            matching.sort(SortComparator.of(pageable.getSort(), reader::read));
+        }
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(matching, pageable, matching.size());
+        }
+
+        int from = (int) Math.min(pageable.getOffset(), matching.size());
+        int to = Math.min(from + pageable.getPageSize(), matching.size());
+        return new PageImpl<>(List.copyOf(matching.subList(from, to)), pageable, matching.size());
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    private Map<Object, List<T>> buildIndex(String attribute) {
+        Map<Object, List<T>> grouped = new LinkedHashMap<>();
+        for (T row : rows) {
+            Object value = reader.read(row, attribute);
+            if (value != null) {
+                grouped.computeIfAbsent(InMemoryFilter.normalize(value), key -> new ArrayList<>()).add(row);
+            }
+        }
+        grouped.replaceAll((key, matches) -> List.copyOf(matches));
+        return Collections.unmodifiableMap(grouped);
+    }
+}
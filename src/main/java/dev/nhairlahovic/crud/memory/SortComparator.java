@@ -0,0 +1,64 @@
+package dev.nhairlahovic.crud.memory;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Comparator;
+import java.util.function.BiFunction;
+
+/**
+ * Orders loaded entities by a {@link Sort}, the way an {@code ORDER BY} clause orders rows.
+ * Strings are compared by their natural order, which matches a binary collation. Ignore-case orders compare
+ * lower-cased values. With {@link Sort.NullHandling#NATIVE}, {@code null} sorts before any value in ascending
+ * order and after any value in descending order, as on H2 and MySQL; specify the null handling explicitly
+ * where the database differs.
+ */
+public final class SortComparator {
+
+    private SortComparator() {
+    }
+
+    /**
+     * Creates a comparator for the sort.
+     *
+     * @param sort   the sort
+     * @param reader reads the sorted attribute from an entity
+     * @param <T>    The entity type.
+     * @return the comparator, which treats all entities as equal if the sort is unsorted
+     */
+    public static <T> Comparator<T> of(Sort sort, BiFunction<T, String, Object> reader) {
+        Comparator<T> comparator = (left, right) -> 0;
+        for (Sort.Order order : sort) {
+            comparator = comparator.thenComparing(of(order, reader));
+        }
+        return comparator;
+    }
+
+    private static <T> Comparator<T> of(Sort.Order order, BiFunction<T, String, Object> reader) {
+        String property = order.getProperty();
+        Comparator<Object> values = order.isIgnoreCase() ? SortComparator::compareIgnoreCase : SortComparator::compare;
+        if (order.isDescending()) {
+            values = values.reversed();
+        }
+
+        boolean nullsFirst = switch (order.getNullHandling()) {
+            case NULLS_FIRST -> true;
+            case NULLS_LAST -> false;
+            case NATIVE -> order.isAscending();
+        };
+        Comparator<Object> nullSafe = nullsFirst ? Comparator.nullsFirst(values) : Comparator.nullsLast(values);
+
+        return (left, right) -> nullSafe.compare(reader.apply(left, property), reader.apply(right, property));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(Object left, Object right) {
+        return ((Comparable) left).compareTo(right);
+    }
+
+    private static int compareIgnoreCase(Object left, Object right) {
+        if (left instanceof String leftString && right instanceof String rightString) {
+            return leftString.toLowerCase().compareTo(rightString.toLowerCase());
+        }
+        return compare(left, right);
+    }
+}
@@ -0,0 +1,12 @@
+package dev.nhairlahovic.crud.model;
+
+/**
+ * Implemented by entities that can be marked for deletion and purged later in the background.
+ * The marker must be persisted in a non-null boolean attribute, named {@code markedForDeletion}
+ * unless the service specifies otherwise.
+ */
+public interface DeletionMarkable {
+    boolean isMarkedForDeletion();
+
+    void markForDeletion();
+}
@@ -0,0 +1,20 @@
+package dev.nhairlahovic.crud.model;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class GroupedDto<K, T> {
+    private Map<K, List<T>> content;
+    private List<K> missing;
+
+    public static <K, T> GroupedDto<K, T> of(Map<K, List<T>> content, List<K> missing) {
+        GroupedDto<K, T> dto = new GroupedDto<>();
+        dto.setContent(content);
+        dto.setMissing(missing);
+
+        return dto;
+    }
+}
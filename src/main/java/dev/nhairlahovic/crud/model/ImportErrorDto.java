@@ -0,0 +1,18 @@
+package dev.nhairlahovic.crud.model;
+
+import dev.nhairlahovic.crud.error.ErrorDto;
+import lombok.Data;
+
+@Data
+public class ImportErrorDto {
+    private long line;
+    private ErrorDto error;
+
+    public static ImportErrorDto of(long line, ErrorDto error) {
+        ImportErrorDto dto = new ImportErrorDto();
+        dto.setLine(line);
+        dto.setError(error);
+
+        return dto;
+    }
+}
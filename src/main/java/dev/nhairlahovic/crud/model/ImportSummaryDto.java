@@ -0,0 +1,21 @@
+package dev.nhairlahovic.crud.model;
+
+import lombok.Data;
+
+@Data
+public class ImportSummaryDto {
+    private long created;
+    private long updated;
+    private long failed;
+    private boolean complete;
+
+    public static ImportSummaryDto of(long created, long updated, long failed, boolean complete) {
+        ImportSummaryDto dto = new ImportSummaryDto();
+        dto.setCreated(created);
+        dto.setUpdated(updated);
+        dto.setFailed(failed);
+        dto.setComplete(complete);
+
+        return dto;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.nhairlahovic.crud.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MultiGetDto<I, T> {
+    private List<T> content;
+    private List<I> missing;
+
+    public static <I, T> MultiGetDto<I, T> of(List<T> content, List<I> missing) {
+        MultiGetDto<I, T> dto = new MultiGetDto<>();
+        dto.setContent(content);
+        dto.setMissing(missing);
+
+        return dto;
+    }
+}
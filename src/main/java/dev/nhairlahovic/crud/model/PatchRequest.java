@@ -0,0 +1,130 @@
+package dev.nhairlahovic.crud.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.TokenStreamContext;
+import tools.jackson.core.sym.PropertyNameMatcher;
+import tools.jackson.core.util.JsonParserDelegate;
+import tools.jackson.databind.BeanProperty;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.annotation.JsonDeserialize;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The body of a PATCH request: the request DTO together with the names of the fields present in the body.
+ * Absent fields are left unchanged by the patch, while fields present with an explicit {@code null} clear the value.
+ * <p>
+ * The body is deserialized straight into the request type by the request type's own deserializer, which reads
+ * through a parser that records the property names of the top-level object, so the body is parsed only once and
+ * with the configuration of the mapper reading it.
+ *
+ * @param <R> The type of the request DTO.
+ */
+@Getter
+@RequiredArgsConstructor(staticName = "of")
+@JsonDeserialize(using = PatchRequest.Deserializer.class)
+public class PatchRequest<R> {
+
+    private final R request;
+    private final Set<String> presentFields;
+
+    /**
+     * Returns whether the field was present in the body, including with a {@code null} value.
+     *
+     * @param field the name of the field
+     * @return whether the field was present
+     */
+    public boolean isPresent(String field) {
+        return presentFields.contains(field);
+    }
+
+    static class Deserializer extends ValueDeserializer<PatchRequest<?>> {
+
+        private final ValueDeserializer<Object> requestDeserializer;
+
+        Deserializer() {
+            this(null);
+        }
+
+        private Deserializer(ValueDeserializer<Object> requestDeserializer) {
+            this.requestDeserializer = requestDeserializer;
+        }
+
+        @Override
+        public ValueDeserializer<?> createContextual(DeserializationContext ctxt, BeanProperty property) {
+            JavaType type = property != null ? property.getType() : ctxt.getContextualType();
+            JavaType requestType = type == null ? null : type.containedType(0);
+            if (requestType == null || requestType.hasRawClass(Object.class)) {
+                return ctxt.reportBadDefinition(ctxt.constructType(PatchRequest.class),
+                        "PatchRequest must be declared with its request type");
+            }
+            return new Deserializer(ctxt.findRootValueDeserializer(requestType));
+        }
+
+        @Override
+        public PatchRequest<?> deserialize(JsonParser p, DeserializationContext ctxt) {
+            if (!p.hasToken(JsonToken.START_OBJECT)) {
+                return PatchRequest.of(requestDeserializer.deserialize(p, ctxt), Set.of());
+            }
+
+            var tracking = new PresenceTrackingParser(p);
+            Object request = requestDeserializer.deserialize(tracking, ctxt);
+            return PatchRequest.of(request, Set.copyOf(tracking.names));
+        }
+    }
+
+    /**
+     * Records the property names read directly in the object the parser is positioned at when it is created.
+     */
+    private static class PresenceTrackingParser extends JsonParserDelegate {
+
+        private final TokenStreamContext object;
+        private final Set<String> names = new HashSet<>();
+
+        PresenceTrackingParser(JsonParser parser) {
+            super(parser);
+            this.object = parser.streamReadContext();
+        }
+
+        @Override
+        public JsonToken nextToken() {
+            JsonToken token = super.nextToken();
+            record();
+            return token;
+        }
+
+        @Override
+        public String nextName() {
+            String name = super.nextName();
+            record();
+            return name;
+        }
+
+        @Override
+        public boolean nextName(SerializableString str) {
+            boolean matches = super.nextName(str);
+            record();
+            return matches;
+        }
+
+        @Override
+        public int nextNameMatch(PropertyNameMatcher matcher) {
+            int match = super.nextNameMatch(matcher);
+            record();
+            return match;
+        }
+
+        private void record() {
+            if (hasToken(JsonToken.PROPERTY_NAME) && streamReadContext() == object) {
+                names.add(currentName());
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.nhairlahovic.crud.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final class Batches {
+
+    private Batches() {
+    }
+
+    /**
+     * Splits the list into consecutive chunks of at most {@code size} elements.
+     */
+    static <T> List<List<T>> chunk(List<T> list, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + size);
+        }
+
+        List<List<T>> chunks = new ArrayList<>((list.size() + size - 1) / size);
+        for (int from = 0; from < list.size(); from += size) {
+            chunks.add(list.subList(from, Math.min(from + size, list.size())));
+        }
+        return chunks;
+    }
+}
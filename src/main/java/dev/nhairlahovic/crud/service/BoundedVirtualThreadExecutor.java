@@ -0,0 +1,38 @@
+package dev.nhairlahovic.crud.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs each task on a new virtual thread while limiting how many tasks run at the same time.
+ * When the limit is reached, {@link #execute} blocks the submitting thread until a running task completes,
+ * so parallel queries can never take more connections than the limit allows.
+ */
+public class BoundedVirtualThreadExecutor implements Executor {
+
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+
+    public BoundedVirtualThreadExecutor(String name, int maxConcurrency) {
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name(name + "-", 0).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        permits.acquireUninterruptibly();
+        try {
+            threadFactory.newThread(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            }).start();
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package dev.nhairlahovic.crud.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent {@link CrudService#create} calls into batched inserts.
+ * Creates are collected until either {@code maxBatchSize} of them are waiting or {@code maxDelay}
+ * has passed since the first one arrived, and are then saved together through {@link CrudService#createBatch}.
+ * Every caller is completed individually, so a failing create does not fail the rest of its batch.
+ * <p>
+ * Inserts are only sent as one JDBC batch when {@code hibernate.jdbc.batch_size} is configured and
+ * the entity does not use an identity column for its id.
+ *
+ * @param <T>  The entity type.
+ * @param <ID> The type of the identifier of the entity.
+ */
+public class CreateCoalescer<T, ID> implements AutoCloseable {
+
+    private final CrudService<T, ID> crudService;
+    private final int maxBatchSize;
+    private final Duration maxDelay;
+    private final BlockingQueue<PendingCreate<T>> queue = new LinkedBlockingQueue<>();
+    // Queued by close() to wake up the worker, which is never interrupted so that a flush is not cut short
+    private final PendingCreate<T> closeSignal = new PendingCreate<>(null, null);
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public CreateCoalescer(CrudService<T, ID> crudService, int maxBatchSize, Duration maxDelay) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+
+        this.crudService = crudService;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelay = maxDelay;
+        this.worker = Thread.ofVirtual()
+                .name("crud-create-coalescer-" + crudService.getResourceType())
+                .start(this::run);
+    }
+
+    /**
+     * Queues the entity for the next batch and waits until it has been saved.
+     *
+     * @param resource the entity to create
+     * @return the saved entity
+     */
+    public T create(T resource) {
+        try {
+            return submit(resource).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Queues the entity for the next batch.
+     *
+     * @param resource the entity to create
+     * @return a future completed with the saved entity, or exceptionally if the create failed
+     */
+    public CompletableFuture<T> submit(T resource) {
+        var pending = new PendingCreate<>(resource, new CompletableFuture<T>());
+        if (closed) {
+            throw new IllegalStateException("Create coalescer for " + crudService.getResourceType() + " is closed");
+        }
+
+        queue.add(pending);
+        // The worker may have drained the queue for the last time between the check above and the add
+        if (closed && queue.remove(pending)) {
+            pending.result().completeExceptionally(
+                    new IllegalStateException("Create coalescer for " + crudService.getResourceType() + " is closed"));
+        }
+        return pending.result();
+    }
+
+    /**
+     * Stops accepting new creates and waits until the batch being saved and the creates that are already queued
+     * have been saved.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        queue.add(closeSignal);
+        worker.join();
+    }
+
+    private void run() {
+        List<PendingCreate<T>> batch = new ArrayList<>(maxBatchSize);
+        boolean open = true;
+        while (open) {
+            open = collect(batch);
+            flush(batch);
+            batch.clear();
+        }
+
+        // Save what was queued before closing, in batches of the usual size
+        List<PendingCreate<T>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.removeIf(pending -> pending == closeSignal);
+        for (List<PendingCreate<T>> rest : Batches.chunk(remaining, maxBatchSize)) {
+            flush(rest);
+        }
+    }
+
+    /**
+     * Collects the next batch, returning {@code false} once the coalescer has been closed.
+     */
+    private boolean collect(List<PendingCreate<T>> batch) {
+        try {
+            PendingCreate<T> first = queue.take();
+            if (first == closeSignal) {
+                return false;
+            }
+            batch.add(first);
+
+            long deadline = System.nanoTime() + maxDelay.toNanos();
+            while (batch.size() < maxBatchSize) {
+                PendingCreate<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return true;
+                }
+                if (next == closeSignal) {
+                    return false;
+                }
+                batch.add(next);
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void flush(List<PendingCreate<T>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<CreateOutcome<T>> outcomes;
+        try {
+            outcomes = crudService.createBatch(batch.stream().map(PendingCreate::resource).toList());
+        } catch (RuntimeException ex) {
+            batch.forEach(pending -> pending.result().completeExceptionally(ex));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            CreateOutcome<T> outcome = outcomes.get(i);
+            CompletableFuture<T> result = batch.get(i).result();
+            if (outcome.isCreated()) {
+                result.complete(outcome.entity());
+            } else {
+                result.completeExceptionally(outcome.error());
+            }
+        }
+    }
+
+    private record PendingCreate<T>(T resource, CompletableFuture<T> result) {
+    }
+}
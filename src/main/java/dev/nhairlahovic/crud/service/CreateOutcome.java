@@ -0,0 +1,24 @@
+package dev.nhairlahovic.crud.service;
+
+/**
+ * The result of creating a single entity as part of a batch.
+ * Exactly one of {@code entity} and {@code error} is set.
+ *
+ * @param entity the saved entity, if the create succeeded
+ * @param error  the reason the create failed, if it did
+ * @param <T>    The entity type.
+ */
+public record CreateOutcome<T>(T entity, RuntimeException error) {
+
+    public static <T> CreateOutcome<T> created(T entity) {
+        return new CreateOutcome<>(entity, null);
+    }
+
+    public static <T> CreateOutcome<T> failed(RuntimeException error) {
+        return new CreateOutcome<>(null, error);
+    }
+
+    public boolean isCreated() {
+        return error == null;
+    }
+}
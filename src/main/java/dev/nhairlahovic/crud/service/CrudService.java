@@ -1,19 +1,55 @@
 package dev.nhairlahovic.crud.service;
 
 import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import dev.nhairlahovic.crud.exception.QueryTimeoutExceededException;
 import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import dev.nhairlahovic.crud.filter.CompiledFilter;
 import dev.nhairlahovic.crud.filter.FilterCriteria;
 import dev.nhairlahovic.crud.filter.FilterSpecification;
+import dev.nhairlahovic.crud.instrumentation.QueryDeadline;
+import dev.nhairlahovic.crud.limiter.OperationClass;
+import dev.nhairlahovic.crud.memory.AttributeReader;
+import dev.nhairlahovic.crud.memory.ChangeDetector;
+import dev.nhairlahovic.crud.memory.InMemoryFilter;
+import dev.nhairlahovic.crud.memory.ReferenceSnapshot;
+import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.DeletionMarkable;
 import dev.nhairlahovic.crud.model.OperationCheck;
 import dev.nhairlahovic.crud.repository.JpaFilterRepository;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.ResolvableType;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This abstract class provides a generic CRUD service.
@@ -31,6 +67,15 @@ public abstract class CrudService<T, ID> {
 
     protected final JpaFilterRepository<T, ID> repository;
 
+    private volatile EntityType<T> entityType;
+    private volatile CompiledFilter<T> compiledFilter;
+    private volatile ChangeDetector<T> changeDetector;
+    private volatile EntityManagerFactory entityManagerFactory;
+    private volatile AttributeReader<T> attributeReader;
+    private volatile Function<T, Object> idReader;
+    private volatile InMemoryFilter<T> inMemoryFilter;
+    private volatile ReferenceSnapshot<T, ID> referenceSnapshot;
+
     public abstract String getResourceType();
 
     public abstract Optional<FilterCriteria> getFilterCriteria();
@@ -40,63 +85,252 @@ public abstract class CrudService<T, ID> {
     }
 
     public List<T> getAll(String filterValue) {
-        if (filterValue == null || getFilterCriteria().isEmpty()) {
-            return repository.findAll();
+        Optional<ReferenceSnapshot<T, ID>> snapshot = getReferenceSnapshot();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findAll(filterValue);
         }
 
-        Specification<T> filterSpec = new FilterSpecification<>(getFilterCriteria().get(), filterValue);
-        return repository.findAll(filterSpec);
+        return withTimeout(filterValue == null ? OperationClass.READ : OperationClass.SEARCH, () -> {
+            Optional<Specification<T>> filterSpec = getQuerySpecification(filterValue);
+            if (filterSpec.isEmpty()) {
+                return repository.findAll();
+            }
+
+            return repository.findAll(filterSpec.get());
+        });
     }
 
+    /**
+     * Returns a page of entities matching the filter value.
+     * Sort fields outside {@link #getAllowedSortFields()} are rejected and the page size is clamped
+     * to {@link #getMaxPageSize()}.
+     *
+     * @param pageable    the requested page
+     * @param filterValue the search value, or {@code null} to return all entities
+     * @return the requested page
+     * @throws FieldValidationException if the page is sorted by a field that is not allowed
+     */
     public Page<T> getByPage(Pageable pageable, String filterValue) {
-        if (filterValue == null || getFilterCriteria().isEmpty()) {
-            return repository.findAll(pageable);
+        Pageable checkedPageable = checkPageable(pageable);
+        Optional<ReferenceSnapshot<T, ID>> snapshot = getReferenceSnapshot();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findPage(checkedPageable, filterValue);
         }
 
-        Specification<T> filterSpec = new FilterSpecification<>(getFilterCriteria().get(), filterValue);
-        return repository.findAll(filterSpec, pageable);
+        return withTimeout(filterValue == null ? OperationClass.READ : OperationClass.SEARCH,
+                () -> findPage(checkedPageable, filterValue));
     }
 
+    /**
+     * Returns the entity with the given id.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     * @throws ResourceNotFoundException if no entity exists with the given id
+     */
     public T getById(ID id) throws ResourceNotFoundException {
-        return repository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString()));
+        Optional<ReferenceSnapshot<T, ID>> snapshot = getReferenceSnapshot();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString()));
+        }
+
+        return withTimeout(OperationClass.READ, () -> getByIdForUpdate(id));
+    }
+
+    /**
+     * Returns the entity with the given id, loaded exclusively for the caller so that it can be modified.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     * @throws ResourceNotFoundException if no entity exists with the given id
+     */
+    public T getByIdForUpdate(ID id) throws ResourceNotFoundException {
+        return withTimeout(OperationClass.READ, () -> repositoryForId(id).findById(id)
+                .filter(this::isVisible)
+                .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString())));
     }
 
     public T create(T resource) {
-        OperationCheck operation = isCreatable(resource);
-        if (!operation.isAllowed()) {
-            throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+        // Coalesced inserts commit in their own transaction, so never coalesce inside a caller's transaction
+        Optional<CreateCoalescer<T, ID>> coalescer = getCreateCoalescer();
+        if (coalescer.isPresent() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return coalescer.get().create(resource);
         }
 
+        checkCreatable(resource);
         beforeCreate(resource);
-        return repository.save(resource);
+        T created = withTimeout(OperationClass.WRITE, () -> repositoryForEntity(resource).save(resource));
+        refreshReferenceSnapshot();
+        return created;
     }
 
-    public T update(ID id, T resource) throws ResourceNotFoundException {
-        if (!repository.existsById(id)) {
-            throw new ResourceNotFoundException(getResourceType(), id.toString());
+    /**
+     * Creates the given entities as one batch, running the same checks and hooks as {@link #create}.
+     * Entities that are not creatable are rejected individually and the rest are saved in a single
+     * transaction. If that transaction fails, the remaining entities are saved one by one so that
+     * a single bad entity does not fail the others.
+     *
+     * @param resources the entities to create
+     * @return one outcome per entity, in the same order as {@code resources}
+     */
+    public List<CreateOutcome<T>> createBatch(List<T> resources) {
+        return withTimeout(OperationClass.WRITE, () -> createBatch(resources, repository));
+    }
+
+    List<CreateOutcome<T>> createBatch(List<T> resources, JpaFilterRepository<T, ID> target) {
+        List<CreateOutcome<T>> outcomes = new ArrayList<>(Collections.nCopies(resources.size(), null));
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < resources.size(); i++) {
+            T resource = resources.get(i);
+            try {
+                checkCreatable(resource);
+                beforeCreate(resource);
+                accepted.add(i);
+            } catch (RuntimeException ex) {
+                outcomes.set(i, CreateOutcome.failed(ex));
+            }
         }
 
-        OperationCheck operation = isEditable(resource);
-        if (!operation.isAllowed()) {
-            throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+        List<T> batch = accepted.stream().map(resources::get).toList();
+        List<Boolean> hadId = batch.stream().map(this::hasId).toList();
+        try {
+            List<T> saved = target.saveAll(batch);
+            for (int i = 0; i < accepted.size(); i++) {
+                outcomes.set(accepted.get(i), CreateOutcome.created(saved.get(i)));
+            }
+        } catch (RuntimeException batchFailure) {
+            for (int i = 0; i < accepted.size(); i++) {
+                int index = accepted.get(i);
+                T resource = batch.get(i);
+                // The rolled back batch may have assigned generated ids, which would turn the retry into a merge
+                if (!hadId.get(i)) {
+                    clearGeneratedId(resource);
+                }
+                try {
+                    outcomes.set(index, CreateOutcome.created(target.save(resource)));
+                } catch (RuntimeException ex) {
+                    outcomes.set(index, CreateOutcome.failed(ex));
+                }
+            }
         }
 
-        beforeUpdate(resource);
-        return repository.save(resource);
+        refreshReferenceSnapshot();
+        return outcomes;
+    }
+
+    /**
+     * Runs the read queries of this service once: the first page, a search for the given value if the service
+     * is searchable, and a lookup of the first entity by id. Used to prepare query plans and connections before
+     * the application takes traffic.
+     *
+     * @param searchValue the value to search for
+     */
+    public void warmUp(String searchValue) {
+        Page<T> page = getByPage(PageRequest.of(0, 20), null);
+        if (getFilterCriteria().isPresent()) {
+            getByPage(PageRequest.of(0, 20), searchValue);
+        }
+        if (page.hasContent() && page.getContent().getFirst() instanceof BaseEntity<?> entity) {
+            @SuppressWarnings("unchecked")
+            ID id = (ID) entity.getId();
+            getById(id);
+        }
+    }
+
+    /**
+     * Updates the entity with the given id. The resource is compared with the stored entity, and nothing is
+     * written if no persistent attribute changed; otherwise the resource is merged onto the loaded entity, so
+     * entities annotated with {@code @DynamicUpdate} only write the changed columns.
+     *
+     * @param id       the id of the entity
+     * @param resource the new state of the entity
+     * @return the updated entity, or the stored entity if nothing changed
+     * @throws ResourceNotFoundException if no entity exists with the given id
+     */
+    @Transactional
+    public T update(ID id, T resource) throws ResourceNotFoundException {
+        return withTimeout(OperationClass.WRITE, () -> {
+            T existing = getByIdForUpdate(id);
+
+            OperationCheck operation = isEditable(resource);
+            if (!operation.isAllowed()) {
+                throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+            }
+
+            beforeUpdate(resource);
+            if (isUnchanged(id, existing, resource)) {
+                Metrics.counter("crud.update.noop", "resource", getResourceType()).increment();
+                return existing;
+            }
+
+            T updated = repositoryForId(id).save(resource);
+            flushWithinDeadline(repositoryForId(id));
+            refreshReferenceSnapshot();
+            return updated;
+        });
+    }
+
+    /**
+     * Compares the resource with the state the stored entity was loaded with, as the resource is often the loaded
+     * entity itself, patched in place within the same persistence context.
+     */
+    private boolean isUnchanged(ID id, T existing, T resource) {
+        ChangeDetector<T> detector = changeDetector;
+        if (detector == null) {
+            return false;
+        }
+
+        EntityManagerFactory factory = entityManagerFactoryFor(id);
+        return detector.isUnchanged(factory == null ? null : EntityManagerFactoryUtils.getTransactionalEntityManager(factory),
+                existing, resource);
+    }
+
+    /**
+     * Returns the entity manager factory of the database storing the entity with the given id, or {@code null}
+     * if it is not known.
+     */
+    EntityManagerFactory entityManagerFactoryFor(ID id) {
+        return entityManagerFactory;
     }
 
     @Transactional
     public void delete(ID id) throws ConflictingResourceOperationException {
-        T entity = this.getById(id);
+        withTimeout(OperationClass.WRITE, () -> {
+            deleteEntity(id);
+            return null;
+        });
+    }
+
+    private void deleteEntity(ID id) {
+        T entity = this.getByIdForUpdate(id);
 
         OperationCheck operation = isDeletable(entity);
         if (!operation.isAllowed()) {
             throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
         }
 
+        Optional<DeletionPurger<T>> purger = getDeletionPurger();
+        if (purger.isPresent()) {
+            ((DeletionMarkable) entity).markForDeletion();
+            repositoryForId(id).save(entity);
+            refreshReferenceSnapshot();
+            purger.get().signal();
+            return;
+        }
+
         beforeDelete(entity);
-        repository.delete(entity);
+        repositoryForId(id).delete(entity);
+        flushWithinDeadline(repositoryForId(id));
+        refreshReferenceSnapshot();
+    }
+
+    /**
+     * Returns whether {@link #delete} only marks entities for deletion and leaves the purge to a background worker.
+     */
+    public boolean isDeletionDeferred() {
+        return getDeletionPurger().isPresent();
     }
 
     /**
@@ -129,6 +363,163 @@ public abstract class CrudService<T, ID> {
         // default no-op
     }
 
+    /**
+     * Returns the entity manager factory of the persistence unit managing the entity.
+     * Subclasses can override when the auto-configuration should not pick the factory itself; by default the
+     * service is bound to the first factory whose metamodel contains the entity.
+     *
+     * @return the entity manager factory, or empty to let the auto-configuration find it
+     */
+    public Optional<EntityManagerFactory> getEntityManagerFactory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Binds this service to the entity manager factory of its entity, so that updates are compared with the state
+     * the entity was loaded with, and then to its metamodel. Called by the module's auto-configuration once all
+     * beans are created.
+     *
+     * @param entityManagerFactory the entity manager factory
+     * @throws IllegalStateException if the filter criteria do not match the entity
+     */
+    public void bindEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        bindMetamodel(entityManagerFactory.getMetamodel());
+    }
+
+    /**
+     * Binds this service to the JPA metamodel of its entity.
+     * Validates the filter criteria against the entity and compiles them once, so that invalid
+     * filter keys fail at startup. Called by the module's auto-configuration once all beans are created.
+     *
+     * @param metamodel the JPA metamodel
+     * @throws IllegalStateException if the filter criteria do not match the entity
+     */
+    public void bindMetamodel(Metamodel metamodel) {
+        EntityType<T> entityType = metamodel.entity(getEntityClass());
+        this.entityType = entityType;
+        this.changeDetector = ChangeDetector.of(entityType);
+        this.compiledFilter = getFilterCriteria()
+                .map(criteria -> CompiledFilter.compile(criteria, entityType))
+                .orElse(null);
+
+        AttributeReader<T> reader = AttributeReader.of(entityType);
+        this.idReader = reader.getIdAttribute() == null ? null : reader.reader(reader.getIdAttribute());
+        if (isReferenceTable()) {
+            this.inMemoryFilter = getFilterCriteria()
+                    .map(criteria -> InMemoryFilter.compile(criteria, reader))
+                    .orElse(null);
+            this.attributeReader = reader;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<T> getEntityClass() {
+        return (Class<T>) ResolvableType.forClass(getClass()).as(CrudService.class).resolveGeneric(0);
+    }
+
+    /**
+     * Returns the fields that clients may sort pages by. The id attribute is always allowed.
+     * Subclasses should override to restrict sorting to indexed columns; on startup, allowed fields
+     * that do not lead an index are reported in the log. By default any field may be used.
+     *
+     * @return the allowed sort fields, or an empty set to allow any field
+     */
+    public Set<String> getAllowedSortFields() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the largest page size served by {@link #getByPage}; larger requests are clamped to it.
+     *
+     * @return the maximum page size
+     */
+    protected int getMaxPageSize() {
+        return 2000;
+    }
+
+    /**
+     * Returns whether this service serves a small, read-mostly table entirely from memory.
+     * Subclasses can override to opt in, in which case {@link #getAll}, {@link #getById}, {@link #getByPage}
+     * and {@link #getByIdIn} are answered from an immutable snapshot of the table, loaded on first use and
+     * reloaded after every write through this service commits. Writes that bypass the service are not seen.
+     * The snapshot entities are shared between requests, so they must not be modified and must not rely on
+     * lazy loading; use {@link #getByIdForUpdate} to modify an entity.
+     * Only takes effect once the service is bound to the metamodel.
+     *
+     * @return whether to keep the table in memory
+     */
+    protected boolean isReferenceTable() {
+        return false;
+    }
+
+    /**
+     * Returns the worker that purges entities marked for deletion.
+     * Subclasses can override to opt in to deferred deletion, in which case {@link #delete} only marks the
+     * entity, the entity must implement {@link DeletionMarkable}, and reads skip marked entities.
+     * By default entities are deleted synchronously.
+     *
+     * @return the deletion purger, or empty to delete synchronously
+     */
+    protected Optional<DeletionPurger<T>> getDeletionPurger() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the name of the boolean attribute marking entities for deletion.
+     *
+     * @return the attribute name used in queries for marked entities
+     */
+    protected String getDeletionMarkerAttribute() {
+        return "markedForDeletion";
+    }
+
+    /**
+     * Returns the coalescer used to batch concurrent {@link #create} calls.
+     * Subclasses can override to opt in; by default every create is saved on its own.
+     *
+     * @return the create coalescer, or empty to save each create individually
+     */
+    protected Optional<CreateCoalescer<T, ID>> getCreateCoalescer() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the maximum number of ids sent in one {@code IN} query.
+     * Keeps the queries below the bind parameter limits of the database.
+     *
+     * @return the chunk size for lookups by many ids
+     */
+    protected int getIdBatchSize() {
+        return 1000;
+    }
+
+    /**
+     * Returns the executor used to run independent queries of a single call in parallel.
+     * Each parallel query runs on its own connection, outside the caller's transaction.
+     * Subclasses can override to opt in, typically with a {@link BoundedVirtualThreadExecutor};
+     * by default the queries run one after another on the calling thread.
+     *
+     * @return the executor for parallel queries, or empty to run them sequentially
+     */
+    protected Optional<Executor> getParallelQueryExecutor() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the time the queries of an operation may take before they are cancelled.
+     * The timeout applies from the start of the operation and never extends the deadline of the request;
+     * it takes effect through the query timeouts set by {@link dev.nhairlahovic.crud.instrumentation.InstrumentedDataSource}.
+     * Subclasses can override to bound expensive operations, typically searches; by default queries only
+     * run against the request deadline, if any.
+     *
+     * @param operation the class of the operation
+     * @return the query timeout, or empty for no timeout of its own
+     */
+    protected Optional<Duration> getQueryTimeout(OperationClass operation) {
+        return Optional.empty();
+    }
+
     protected OperationCheck isCreatable(T resource) {
         return OperationCheck.permitted();
     }
@@ -141,7 +532,301 @@ public abstract class CrudService<T, ID> {
         return OperationCheck.permitted();
     }
 
+    /**
+     * Returns the entities with the given ids, in no particular order; ids without an entity are skipped.
+     * The ids are queried in chunks of {@link #getIdBatchSize()}, in parallel when
+     * {@link #getParallelQueryExecutor()} provides an executor.
+     *
+     * @param ids the ids of the entities
+     * @return the entities that exist
+     */
     public List<T> getByIdIn(List<ID> ids) {
-        return repository.findAllById(ids);
+        Optional<ReferenceSnapshot<T, ID>> snapshot = getReferenceSnapshot();
+        if (snapshot.isPresent()) {
+            return snapshot.get().findAllById(ids);
+        }
+
+        List<T> resources = withTimeout(OperationClass.READ, () -> findAllByIdInChunks(ids));
+        return isDeletionDeferred() ? resources.stream().filter(this::isVisible).toList() : resources;
+    }
+
+    private List<T> findAllByIdInChunks(List<ID> ids) {
+        List<List<ID>> chunks = Batches.chunk(ids, getIdBatchSize());
+        if (chunks.size() <= 1) {
+            return repository.findAllById(ids);
+        }
+
+        Optional<Executor> executor = getParallelQueryExecutor();
+        if (executor.isEmpty()) {
+            return chunks.stream()
+                    .flatMap(chunk -> repository.findAllById(chunk).stream())
+                    .toList();
+        }
+
+        List<CompletableFuture<List<T>>> results = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(
+                        QueryDeadline.propagate(() -> repository.findAllById(chunk)), executor.get()))
+                .toList();
+        return results.stream()
+                .flatMap(result -> join(result).stream())
+                .toList();
+    }
+
+    Page<T> findPage(Pageable pageable, String filterValue) {
+        Optional<Specification<T>> filterSpec = getQuerySpecification(filterValue);
+
+        // The count runs on its own connection, which would not see the changes of a caller's transaction
+        Optional<Executor> executor = getParallelQueryExecutor();
+        if (executor.isPresent() && pageable.isPaged() && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return findPageWithParallelCount(pageable, filterSpec.orElse((root, query, builder) -> builder.conjunction()), executor.get());
+        }
+
+        if (filterSpec.isEmpty()) {
+            return repository.findAll(pageable);
+        }
+
+        return repository.findAll(filterSpec.get(), pageable);
+    }
+
+    /**
+     * Loads the page content on the calling thread while the total is counted in parallel.
+     * When the content shows that this is the last page, the total follows from it: the count is then
+     * skipped if it has not started yet, and not waited for otherwise.
+     * <p>
+     * Both queries run in separate transactions, so a concurrent write may be visible to one and not the other.
+     * The total is never reported lower than the entities already returned.
+     */
+    private Page<T> findPageWithParallelCount(Pageable pageable, Specification<T> spec, Executor executor) {
+        AtomicBoolean countNeeded = new AtomicBoolean(true);
+        CompletableFuture<Long> count = CompletableFuture.supplyAsync(
+                QueryDeadline.propagate(() -> countNeeded.get() ? repository.count(spec) : -1L), executor);
+
+        Slice<T> slice = repository.findBy(spec, query -> query.slice(pageable));
+        List<T> content = slice.getContent();
+
+        if (!slice.hasNext() && (!content.isEmpty() || pageable.getOffset() == 0)) {
+            countNeeded.set(false);
+            return new PageImpl<>(content, pageable, pageable.getOffset() + content.size());
+        }
+
+        long total = join(count);
+        long returned = content.isEmpty() ? 0 : pageable.getOffset() + content.size();
+        return new PageImpl<>(content, pageable, Math.max(total, returned));
+    }
+
+    Optional<Specification<T>> getQuerySpecification(String filterValue) {
+        Optional<Specification<T>> filterSpec = getFilterSpecification(filterValue);
+        if (!isDeletionDeferred()) {
+            return filterSpec;
+        }
+
+        Specification<T> notMarked = markedForDeletion(false);
+        return Optional.of(filterSpec.map(notMarked::and).orElse(notMarked));
+    }
+
+    private Optional<Specification<T>> getFilterSpecification(String filterValue) {
+        if (filterValue == null) {
+            return Optional.empty();
+        }
+
+        CompiledFilter<T> filter = compiledFilter;
+        if (filter != null) {
+            return Optional.of(filter.bind(filterValue));
+        }
+
+        // Not bound to the metamodel (e.g. outside a Spring Boot application), resolve keys by name
+        return getFilterCriteria().map(criteria -> new FilterSpecification<>(criteria, filterValue));
+    }
+
+    /**
+     * Runs the action within the query timeout of the operation, reporting timed out queries as
+     * {@link QueryTimeoutExceededException}.
+     */
+    <V> V withTimeout(OperationClass operation, Supplier<V> action) {
+        Optional<Duration> timeout = getQueryTimeout(operation);
+        try {
+            return timeout.isPresent() ? QueryDeadline.within(timeout.get(), action) : action.get();
+        } catch (QueryTimeoutException | jakarta.persistence.QueryTimeoutException ex) {
+            throw new QueryTimeoutExceededException(getResourceType(), ex);
+        }
+    }
+
+    private static void flushWithinDeadline(JpaFilterRepository<?, ?> target) {
+        // Write the changes now rather than at commit, which may happen after the deadline is unbound
+        if (QueryDeadline.remaining().isPresent()) {
+            target.flush();
+        }
+    }
+
+    private Pageable checkPageable(Pageable pageable) {
+        return Pageables.check(pageable, getAllowedSortFields(), getIdAttributeName(), getMaxPageSize(), getResourceType());
+    }
+
+    String getIdAttributeName() {
+        EntityType<T> type = entityType;
+        if (type == null) {
+            return "id";
+        }
+
+        return type.getSingularAttributes().stream()
+                .filter(SingularAttribute::isId)
+                .map(SingularAttribute::getName)
+                .findFirst()
+                .orElse("id");
+    }
+
+    /**
+     * Returns the repository storing the entity with the given id.
+     */
+    JpaFilterRepository<T, ID> repositoryForId(ID id) {
+        return repository;
+    }
+
+    /**
+     * Returns the repository a new entity is stored in.
+     */
+    JpaFilterRepository<T, ID> repositoryForEntity(T resource) {
+        return repository;
+    }
+
+    /**
+     * Returns the next entities marked for deletion in id order, starting after the given one.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<T> findMarkedForDeletion(T after, int limit) {
+        String idAttribute = getIdAttributeName();
+        Comparable afterId = after == null ? null : (Comparable) getEntityId(after);
+        Specification<T> spec = afterId == null
+                ? markedForDeletion(true)
+                : markedForDeletion(true).and((root, query, builder) -> builder.greaterThan(root.get(idAttribute), afterId));
+        PageRequest firstById = PageRequest.of(0, limit, Sort.by(idAttribute));
+
+        List<JpaFilterRepository<T, ID>> repositories = allRepositories();
+        if (repositories.size() == 1) {
+            return repositories.getFirst().findAll(spec, firstById).getContent();
+        }
+
+        // The overall first entities after the last id are among the first ones of every repository
+        return repositories.stream()
+                .flatMap(target -> target.findAll(spec, firstById).stream())
+                .sorted(Comparator.comparing(entity -> (Comparable) getEntityId(entity)))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Returns the repositories of all databases storing the entities.
+     */
+    List<JpaFilterRepository<T, ID>> allRepositories() {
+        return List.of(repository);
+    }
+
+    /**
+     * Deletes the entity as currently stored, if it is still marked for deletion.
+     */
+    void purge(T marked) {
+        ID id = getEntityId(marked);
+        repositoryForId(id).findById(id)
+                .filter(entity -> ((DeletionMarkable) entity).isMarkedForDeletion())
+                .ifPresent(entity -> {
+                    beforeDelete(entity);
+                    repositoryForId(id).delete(entity);
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    ID getEntityId(T entity) {
+        if (entity instanceof BaseEntity<?> baseEntity) {
+            return (ID) baseEntity.getId();
+        }
+        Function<T, Object> reader = idReader;
+        if (reader == null) {
+            throw new IllegalStateException("The id of " + getResourceType() + " cannot be read");
+        }
+        return (ID) reader.apply(entity);
+    }
+
+    private Optional<ReferenceSnapshot<T, ID>> getReferenceSnapshot() {
+        if (attributeReader == null) {
+            return Optional.empty();
+        }
+
+        ReferenceSnapshot<T, ID> snapshot = referenceSnapshot;
+        if (snapshot == null) {
+            synchronized (this) {
+                snapshot = referenceSnapshot;
+                if (snapshot == null) {
+                    snapshot = loadReferenceSnapshot();
+                }
+            }
+        }
+        return Optional.of(snapshot);
+    }
+
+    private void refreshReferenceSnapshot() {
+        if (attributeReader == null || referenceSnapshot == null) {
+            return;
+        }
+
+        // Reload only once the write is visible to other connections
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    loadReferenceSnapshot();
+                }
+            });
+        } else {
+            loadReferenceSnapshot();
+        }
+    }
+
+    private synchronized ReferenceSnapshot<T, ID> loadReferenceSnapshot() {
+        Sort byId = Sort.by(getIdAttributeName());
+        List<T> rows = isDeletionDeferred()
+                ? repository.findAll(markedForDeletion(false), byId)
+                : repository.findAll(byId);
+
+        ReferenceSnapshot<T, ID> snapshot = new ReferenceSnapshot<>(rows, attributeReader, inMemoryFilter);
+        referenceSnapshot = snapshot;
+        return snapshot;
+    }
+
+    private Specification<T> markedForDeletion(boolean marked) {
+        String attribute = getDeletionMarkerAttribute();
+        return (root, query, builder) -> marked ? builder.isTrue(root.<Boolean>get(attribute)) : builder.isFalse(root.<Boolean>get(attribute));
+    }
+
+    boolean isVisible(T resource) {
+        return !(isDeletionDeferred() && resource instanceof DeletionMarkable markable && markable.isMarkedForDeletion());
+    }
+
+    static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void checkCreatable(T resource) {
+        OperationCheck operation = isCreatable(resource);
+        if (!operation.isAllowed()) {
+            throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+        }
+    }
+
+    private boolean hasId(T resource) {
+        return resource instanceof BaseEntity<?> entity && entity.getId() != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void clearGeneratedId(T resource) {
+        if (resource instanceof BaseEntity<?> entity) {
+            ((BaseEntity<Object>) entity).setId(null);
+        }
     }
 }
@@ -0,0 +1,151 @@
+package dev.nhairlahovic.crud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Purges entities that were marked for deletion by a service running in deferred deletion mode.
+ * Marked entities are loaded in chunks and each one is deleted in its own transaction, running the
+ * service's {@code beforeDelete} hook and the JPA cascades. Every entity is loaded again in its transaction and
+ * skipped if it is no longer marked. Failed purges are retried with exponential backoff; entities that still fail
+ * stay marked and are picked up again on the next run, while the current run continues after them in id order.
+ * <p>
+ * A run starts shortly after every deferred delete and periodically to catch up on entities marked
+ * before a restart. Between chunks the purger pauses, so that purging never saturates the database.
+ *
+ * @param <T> The entity type.
+ */
+@Slf4j
+public class DeletionPurger<T> implements AutoCloseable {
+
+    private final String resourceType;
+    private final MarkedLoader<T> markedLoader;
+    private final Consumer<T> purgeAction;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration pauseBetweenChunks;
+    private final int maxAttempts;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean runScheduled = new AtomicBoolean();
+
+    public DeletionPurger(CrudService<T, ?> crudService, PlatformTransactionManager transactionManager) {
+        this(crudService, transactionManager, 100, Duration.ofMinutes(1), Duration.ofMillis(100), 3);
+    }
+
+    public DeletionPurger(CrudService<T, ?> crudService, PlatformTransactionManager transactionManager,
+                          int chunkSize, Duration pollInterval, Duration pauseBetweenChunks, int maxAttempts) {
+        this(crudService.getResourceType(), (after, failed, limit) -> crudService.findMarkedForDeletion(after, limit),
+                crudService::purge,
+                transactionManager, chunkSize, pollInterval, pauseBetweenChunks, maxAttempts);
+    }
+
+    public DeletionPurger(NestedCrudService<?, T, ?, ?> nestedCrudService, PlatformTransactionManager transactionManager) {
+        this(nestedCrudService, transactionManager, 100, Duration.ofMinutes(1), Duration.ofMillis(100), 3);
+    }
+
+    public DeletionPurger(NestedCrudService<?, T, ?, ?> nestedCrudService, PlatformTransactionManager transactionManager,
+                          int chunkSize, Duration pollInterval, Duration pauseBetweenChunks, int maxAttempts) {
+        this(nestedCrudService.getResourceType(), nestedCrudService::findMarkedForDeletion, nestedCrudService::purge,
+                transactionManager, chunkSize, pollInterval, pauseBetweenChunks, maxAttempts);
+    }
+
+    private DeletionPurger(String resourceType, MarkedLoader<T> markedLoader, Consumer<T> purgeAction,
+                           PlatformTransactionManager transactionManager, int chunkSize, Duration pollInterval,
+                           Duration pauseBetweenChunks, int maxAttempts) {
+        this.resourceType = resourceType;
+        this.markedLoader = markedLoader;
+        this.purgeAction = purgeAction;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.pauseBetweenChunks = pauseBetweenChunks;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("crud-deletion-purger-" + resourceType).factory());
+        this.scheduler.scheduleWithFixedDelay(this::runSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Requests a purge run soon, typically after an entity has been marked for deletion.
+     */
+    public void signal() {
+        if (runScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::runSafely, pauseBetweenChunks.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    private void runSafely() {
+        runScheduled.set(false);
+        try {
+            run();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            log.error("Purging {} entities marked for deletion failed", resourceType, ex);
+        }
+    }
+
+    private void run() throws InterruptedException {
+        T last = null;
+        int failed = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            List<T> chunk = markedLoader.load(last, failed, chunkSize);
+
+            for (T entity : chunk) {
+                if (!purgeWithRetry(entity)) {
+                    failed++;
+                }
+            }
+
+            // Entities that failed stay marked, so the next chunk continues after the last one processed
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            last = chunk.getLast();
+            Thread.sleep(pauseBetweenChunks);
+        }
+    }
+
+    private boolean purgeWithRetry(T entity) throws InterruptedException {
+        Duration backoff = pauseBetweenChunks;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> purgeAction.accept(entity));
+                return true;
+            } catch (RuntimeException ex) {
+                if (attempt >= maxAttempts) {
+                    log.warn("Purging {} marked for deletion failed after {} attempts, will retry on the next run",
+                            resourceType, attempt, ex);
+                    return false;
+                }
+            }
+
+            Thread.sleep(backoff);
+            backoff = backoff.multipliedBy(2);
+        }
+    }
+
+    /**
+     * Loads the next marked entities after the last one processed, or the first ones if it is {@code null}.
+     * Loaders that cannot order by id skip the given number of entities that failed to be purged instead.
+     */
+    @FunctionalInterface
+    interface MarkedLoader<T> {
+
+        List<T> load(T after, int failed, int limit);
+    }
+}
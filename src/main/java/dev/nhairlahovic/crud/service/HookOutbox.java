@@ -0,0 +1,247 @@
+package dev.nhairlahovic.crud.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ResolvableType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the {@code afterCreateCommitted} and {@code afterUpdateCommitted} hooks of a {@link NestedCrudService}
+ * asynchronously, after the write has committed, with at-least-once delivery.
+ * <p>
+ * Every write records an entry in the {@code crud_hook_outbox} table in the same transaction as the entity,
+ * so a hook is never lost when the application stops after the commit, and never runs for a write that was
+ * rolled back. Once the transaction commits, the hook runs on a virtual thread; at most {@code maxConcurrency}
+ * hooks run at the same time, and entries that find no free slot are left to the poller. Failed hooks are
+ * retried with exponential backoff until {@code maxAttempts} is reached, after which the entry stays in the
+ * table with its last error for inspection.
+ * <p>
+ * Hooks receive the entity as currently stored, and are skipped if it no longer exists. Since a hook may run
+ * more than once, it must be idempotent. The table is created with {@code crud-hook-outbox.sql}.
+ *
+ * @param <E>  The entity type.
+ * @param <ID> The type of the identifier of the entity.
+ */
+@Slf4j
+public class HookOutbox<E, ID> implements AutoCloseable {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+    private static final int POLL_BATCH_SIZE = 100;
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final NestedCrudService<?, E, ?, ID> service;
+    private final String resourceType;
+    private final Class<?> idType;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+    private final Duration initialBackoff;
+    private final int maxAttempts;
+    private final ScheduledExecutorService poller;
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public HookOutbox(NestedCrudService<?, E, ?, ID> service, DataSource dataSource,
+                      PlatformTransactionManager transactionManager) {
+        this(service, dataSource, transactionManager, 16, Duration.ofSeconds(10), Duration.ofSeconds(1), 10);
+    }
+
+    public HookOutbox(NestedCrudService<?, E, ?, ID> service, DataSource dataSource,
+                      PlatformTransactionManager transactionManager, int maxConcurrency, Duration pollInterval,
+                      Duration initialBackoff, int maxAttempts) {
+        this.service = service;
+        this.resourceType = service.getResourceType();
+        this.idType = ResolvableType.forClass(service.getClass()).as(NestedCrudService.class).resolveGeneric(3);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setMaxRows(POLL_BATCH_SIZE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.permits = new Semaphore(maxConcurrency);
+        this.threadFactory = Thread.ofVirtual().name("crud-hook-" + resourceType + "-", 0).factory();
+        this.initialBackoff = initialBackoff;
+        this.maxAttempts = maxAttempts;
+        this.poller = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("crud-hook-poller-" + resourceType).factory());
+        this.poller.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops polling and waits for the hooks that are running. Hooks that have not started yet stay in the table
+     * and are run once their lease expires.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        poller.shutdownNow();
+        poller.awaitTermination(30, TimeUnit.SECONDS);
+        for (Thread worker : List.copyOf(workers)) {
+            worker.join();
+        }
+    }
+
+    /**
+     * Runs the write and records the hook for the written entity in the same transaction.
+     * Joins the caller's transaction if there is one.
+     */
+    <S extends E> S record(Event event, Supplier<S> write, Function<S, ID> idOf) {
+        return transactionTemplate.execute(status -> {
+            S saved = write.get();
+            Entry entry = new Entry(UUID.randomUUID().toString(), event, objectMapper.writeValueAsString(idOf.apply(saved)), 1);
+            jdbcTemplate.update("""
+                            INSERT INTO crud_hook_outbox (id, resource_type, event, entity_id, attempts, next_attempt_at, created_at)
+                            VALUES (?, ?, ?, ?, ?, ?, ?)""",
+                    entry.id(), resourceType, event.name(), entry.entityId(), entry.attempts(),
+                    Timestamp.from(Instant.now().plus(LEASE)), Timestamp.from(Instant.now()));
+
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(entry);
+                }
+            });
+            return saved;
+        });
+    }
+
+    private void dispatch(Entry entry) {
+        // Never block the committing thread; without a free slot the entry is run by the poller once its lease expires
+        if (!closed && permits.tryAcquire()) {
+            start(entry);
+        }
+    }
+
+    private void start(Entry entry) {
+        Thread worker = null;
+        try {
+            worker = threadFactory.newThread(() -> {
+                try {
+                    deliver(entry);
+                } finally {
+                    workers.remove(Thread.currentThread());
+                    permits.release();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        } catch (RuntimeException ex) {
+            if (worker != null) {
+                workers.remove(worker);
+            }
+            permits.release();
+            log.warn("Could not start the {} hook of {}, leaving it to the poller", entry.event(), resourceType, ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void deliver(Entry entry) {
+        try {
+            ID id = (ID) objectMapper.readValue(entry.entityId(), idType);
+            transactionTemplate.executeWithoutResult(status -> {
+                Optional<E> entity = service.findForHook(id);
+                if (entity.isEmpty()) {
+                    return;
+                }
+                switch (entry.event()) {
+                    case CREATED -> service.afterCreateCommitted(entity.get());
+                    case UPDATED -> service.afterUpdateCommitted(entity.get());
+                }
+            });
+            jdbcTemplate.update("DELETE FROM crud_hook_outbox WHERE id = ?", entry.id());
+        } catch (RuntimeException ex) {
+            retryLater(entry, ex);
+        }
+    }
+
+    private void retryLater(Entry entry, RuntimeException failure) {
+        String error = String.valueOf(failure);
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        if (entry.attempts() >= maxAttempts) {
+            log.error("The {} hook of {} with id {} failed {} times, giving up", entry.event(), resourceType,
+                    entry.entityId(), entry.attempts(), failure);
+        } else {
+            log.warn("The {} hook of {} with id {} failed, retrying", entry.event(), resourceType, entry.entityId(), failure);
+        }
+
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(entry.attempts() - 1, 20));
+        try {
+            jdbcTemplate.update("UPDATE crud_hook_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?",
+                    Timestamp.from(Instant.now().plus(backoff)), error, entry.id());
+        } catch (RuntimeException ex) {
+            log.warn("Could not reschedule the {} hook of {}, it will be retried once its lease expires",
+                    entry.event(), resourceType, ex);
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException ex) {
+            log.error("Polling the {} hook outbox failed", resourceType, ex);
+        }
+    }
+
+    private void poll() {
+        List<Entry> due = jdbcTemplate.query("""
+                        SELECT id, event, entity_id, attempts FROM crud_hook_outbox
+                        WHERE resource_type = ? AND attempts < ? AND next_attempt_at <= ?
+                        ORDER BY next_attempt_at""",
+                (rs, rowNum) -> new Entry(rs.getString("id"), Event.valueOf(rs.getString("event")),
+                        rs.getString("entity_id"), rs.getInt("attempts")),
+                resourceType, maxAttempts, Timestamp.from(Instant.now()));
+
+        for (Entry entry : due) {
+            // Like dispatch, never wait for a slot; the remaining entries are picked up by the next poll
+            if (closed || !permits.tryAcquire()) {
+                return;
+            }
+
+            // Claim the entry by counting the attempt, so that other instances polling the same table skip it
+            int claimed = jdbcTemplate.update("""
+                            UPDATE crud_hook_outbox SET attempts = attempts + 1, next_attempt_at = ?
+                            WHERE id = ? AND attempts = ?""",
+                    Timestamp.from(Instant.now().plus(LEASE)), entry.id(), entry.attempts());
+            if (claimed == 1) {
+                start(new Entry(entry.id(), entry.event(), entry.entityId(), entry.attempts() + 1));
+            } else {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * The write a hook is recorded for.
+     */
+    enum Event {
+        CREATED,
+        UPDATED
+    }
+
+    private record Entry(String id, Event event, String entityId, int attempts) {
+    }
+}
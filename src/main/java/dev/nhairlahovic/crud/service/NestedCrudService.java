@@ -1,18 +1,55 @@
 package dev.nhairlahovic.crud.service;
 
 import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import dev.nhairlahovic.crud.exception.QueryTimeoutExceededException;
 import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import dev.nhairlahovic.crud.filter.CompiledFilter;
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterSpecification;
+import dev.nhairlahovic.crud.instrumentation.QueryDeadline;
+import dev.nhairlahovic.crud.limiter.OperationClass;
+import dev.nhairlahovic.crud.memory.AttributeReader;
+import dev.nhairlahovic.crud.memory.ChangeDetector;
+import dev.nhairlahovic.crud.model.BaseCompositeKeyEntity;
+import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.DeletionMarkable;
 import dev.nhairlahovic.crud.model.OperationCheck;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.core.ResolvableType;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.DeleteSpecification;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.UpdateSpecification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This abstract class provides a simplified generic CRUD service for entities related to a parent entity.
- * It handles basic CRUD operations (Create, Read, Update, Delete) without pagination or filtering.
+ * It handles basic CRUD operations (Create, Read, Update, Delete). Paging and filtering through
+ * {@link #getByParent} require the repository to implement {@link JpaSpecificationExecutor}.
  *
  * @param <P>  The parent entity type that this service will manage.
  * @param <E>  The related entity type that this service will manage.
@@ -25,6 +62,12 @@ public abstract class NestedCrudService<P, E, PI, ID> {
     protected final JpaRepository<E, ID> repository;
     protected final JpaRepository<P, PI> parentRepository;
 
+    private volatile CompiledFilter<E> compiledFilter;
+    private volatile ChangeDetector<E> changeDetector;
+    private volatile EntityManagerFactory entityManagerFactory;
+    private volatile AttributeReader<E> attributeReader;
+    private volatile AttributeReader<P> parentAttributeReader;
+
     public abstract String getResourceType();
 
     public abstract String getParentResourceType();
@@ -34,18 +77,171 @@ public abstract class NestedCrudService<P, E, PI, ID> {
     protected abstract Optional<E> findByIdAndParent(ID id, P parent);
 
     public List<E> getAllByParent(PI parentId) {
+        return withTimeout(OperationClass.READ, () -> {
+            P parent = parentRepository.findById(parentId)
+                    .orElseThrow(() -> new ResourceNotFoundException(getParentResourceType(), parentId.toString()));
+
+            return visible(findByParent(parent));
+        });
+    }
+
+    /**
+     * Returns a page of the children of a parent that match the filter value.
+     * The parent is part of the query, so only the requested page is loaded. Sort fields outside
+     * {@link #getAllowedSortFields()} are rejected and the page size is clamped to {@link #getMaxPageSize()}.
+     *
+     * @param parentId    the id of the parent entity
+     * @param pageable    the requested page
+     * @param filterValue the search value, or {@code null} to return all children
+     * @return the requested page
+     * @throws ResourceNotFoundException if the parent does not exist
+     * @throws FieldValidationException  if the page is sorted by a field that is not allowed
+     */
+    public Page<E> getByParent(PI parentId, Pageable pageable, String filterValue) {
+        AttributeReader<E> reader = attributeReader;
+        String idAttribute = reader == null || reader.getIdAttribute() == null ? "id" : reader.getIdAttribute();
+        Pageable checkedPageable = Pageables.check(pageable, getAllowedSortFields(), idAttribute, getMaxPageSize(),
+                getResourceType());
+
+        return withTimeout(filterValue == null ? OperationClass.READ : OperationClass.SEARCH,
+                () -> findPageByParent(parentId, checkedPageable, filterValue));
+    }
+
+    private Page<E> findPageByParent(PI parentId, Pageable pageable, String filterValue) {
         P parent = parentRepository.findById(parentId)
                 .orElseThrow(() -> new ResourceNotFoundException(getParentResourceType(), parentId.toString()));
 
-        return findByParent(parent);
+        String parentAttribute = getParentAttribute();
+        Specification<E> spec = (root, query, builder) -> builder.equal(root.get(parentAttribute), parent);
+        Optional<Specification<E>> filterSpec = getFilterSpecification(filterValue);
+        if (filterSpec.isPresent()) {
+            spec = spec.and(filterSpec.get());
+        }
+        if (isDeletionDeferred()) {
+            spec = spec.and(markedForDeletion(false));
+        }
+
+        return specificationExecutor("Paging").findAll(spec, pageable);
     }
 
+    private Optional<Specification<E>> getFilterSpecification(String filterValue) {
+        if (filterValue == null) {
+            return Optional.empty();
+        }
+
+        CompiledFilter<E> filter = compiledFilter;
+        if (filter != null) {
+            return Optional.of(filter.bind(filterValue));
+        }
+
+        // Not bound to the metamodel (e.g. outside a Spring Boot application), resolve keys by name
+        return getFilterCriteria().map(criteria -> new FilterSpecification<>(criteria, filterValue));
+    }
+
+    /**
+     * Returns the children of several parents at once, grouped by parent id.
+     * The parent ids are split into chunks of {@link #getParentBatchSize()} and each chunk is loaded
+     * with {@link #findByParentIds}. Parents that do not exist are left out of the result instead of
+     * failing the whole call.
+     *
+     * @param parentIds the ids of the parent entities
+     * @return the children of every existing parent, keyed by parent id in the order requested
+     */
+    public Map<PI, List<E>> getAllByParentIds(List<PI> parentIds) {
+        return withTimeout(OperationClass.READ, () -> {
+            Map<PI, List<E>> children = new LinkedHashMap<>();
+            for (List<PI> chunk : Batches.chunk(parentIds.stream().distinct().toList(), getParentBatchSize())) {
+                Map<PI, List<E>> found = findByParentIds(chunk);
+                for (PI parentId : chunk) {
+                    List<E> parentChildren = found.get(parentId);
+                    if (parentChildren != null) {
+                        children.put(parentId, visible(parentChildren));
+                    }
+                }
+            }
+            return children;
+        });
+    }
+
+    /**
+     * Returns the entity with the given id under the given parent.
+     *
+     * @param parentId the id of the parent entity
+     * @param id       the id of the entity
+     * @return the entity
+     */
     public E getById(PI parentId, ID id) {
-        P parent = parentRepository.findById(parentId)
-                .orElseThrow(() -> new ResourceNotFoundException(getParentResourceType(), parentId.toString()));
+        return withTimeout(OperationClass.READ, () -> getByIdForUpdate(parentId, id));
+    }
 
-        return findByIdAndParent(id, parent)
-                .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString()));
+    /**
+     * Returns the entity with the given id under the given parent, loaded exclusively for the caller
+     * so that it can be modified.
+     *
+     * @param parentId the id of the parent entity
+     * @param id       the id of the entity
+     * @return the entity
+     */
+    public E getByIdForUpdate(PI parentId, ID id) {
+        return withTimeout(OperationClass.READ, () -> {
+            P parent = parentRepository.findById(parentId)
+                    .orElseThrow(() -> new ResourceNotFoundException(getParentResourceType(), parentId.toString()));
+
+            return findByIdAndParent(id, parent)
+                    .filter(this::isVisible)
+                    .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString()));
+        });
+    }
+
+    /**
+     * Returns the entity manager factory of the persistence unit managing the entity and its parent.
+     * Subclasses can override when the auto-configuration should not pick the factory itself; by default the
+     * service is bound to the first factory whose metamodel contains the entity and its parent.
+     *
+     * @return the entity manager factory, or empty to let the auto-configuration find it
+     */
+    public Optional<EntityManagerFactory> getEntityManagerFactory() {
+        return Optional.empty();
+    }
+
+    /**
+     * Binds this service to the entity manager factory of its entity, so that updates are compared with the state
+     * the entity was loaded with, and then to its metamodel. Called by the module's auto-configuration once all
+     * beans are created.
+     *
+     * @param entityManagerFactory the entity manager factory
+     */
+    public void bindEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+        bindMetamodel(entityManagerFactory.getMetamodel());
+    }
+
+    /**
+     * Binds this service to the JPA metamodel of its entity, so that updates can be compared with the stored state.
+     * Validates the filter criteria against the entity and compiles them once, so that invalid filter keys fail
+     * at startup. Called by the module's auto-configuration once all beans are created.
+     *
+     * @param metamodel the JPA metamodel
+     * @throws IllegalStateException if the filter criteria do not match the entity
+     */
+    public void bindMetamodel(Metamodel metamodel) {
+        EntityType<E> entityType = metamodel.entity(getEntityClass());
+        this.compiledFilter = getFilterCriteria()
+                .map(criteria -> CompiledFilter.compile(criteria, entityType))
+                .orElse(null);
+        this.changeDetector = ChangeDetector.of(entityType);
+        this.attributeReader = AttributeReader.of(entityType);
+        this.parentAttributeReader = AttributeReader.of(metamodel.entity(getParentClass()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<E> getEntityClass() {
+        return (Class<E>) ResolvableType.forClass(getClass()).as(NestedCrudService.class).resolveGeneric(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Class<P> getParentClass() {
+        return (Class<P>) ResolvableType.forClass(getClass()).as(NestedCrudService.class).resolveGeneric(0);
     }
 
     public E create(E resource) {
@@ -54,16 +250,35 @@ public abstract class NestedCrudService<P, E, PI, ID> {
             throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
         }
 
-        E savedResource = repository.save(resource);
+        Optional<HookOutbox<E, ID>> outbox = getHookOutbox();
+        E savedResource = withTimeout(OperationClass.WRITE, () -> outbox.isPresent()
+                ? outbox.get().record(HookOutbox.Event.CREATED, () -> repository.save(resource), this::getEntityId)
+                : repository.save(resource));
 
         afterCreate(savedResource);
 
         return savedResource;
     }
 
+    /**
+     * Updates the entity with the given id. After {@link #beforeUpdate}, the resource is compared with the
+     * stored entity: if no persistent attribute changed nothing is written, the asynchronous hooks are skipped,
+     * and {@link #afterUpdate} only runs if {@link #isAfterUpdateCalledWhenUnchanged()} says so. Otherwise the
+     * resource is merged onto the loaded entity, so entities annotated with {@code @DynamicUpdate} only write
+     * the changed columns.
+     *
+     * @param id       the id of the entity
+     * @param resource the new state of the entity
+     * @return the updated entity, or the stored entity if nothing changed
+     */
     @Transactional
     public E update(ID id, E resource) {
+        return withTimeout(OperationClass.WRITE, () -> updateEntity(id, resource));
+    }
+
+    private E updateEntity(ID id, E resource) {
         E existingResource = repository.findById(id)
+                .filter(this::isVisible)
                 .orElseThrow(() -> new ResourceNotFoundException(getResourceType(), id.toString()));
 
         OperationCheck operation = isEditable(id, resource);
@@ -73,24 +288,306 @@ public abstract class NestedCrudService<P, E, PI, ID> {
 
         beforeUpdate(resource, existingResource);
 
-        E updatedResource = repository.save(resource);
+        if (isUnchanged(existingResource, resource)) {
+            Metrics.counter("crud.update.noop", "resource", getResourceType()).increment();
+            if (isAfterUpdateCalledWhenUnchanged()) {
+                afterUpdate(existingResource);
+            }
+            return existingResource;
+        }
+
+        Optional<HookOutbox<E, ID>> outbox = getHookOutbox();
+        E updatedResource = outbox.isPresent()
+                ? outbox.get().record(HookOutbox.Event.UPDATED, () -> repository.save(resource), saved -> id)
+                : repository.save(resource);
+        flushWithinDeadline();
 
         afterUpdate(updatedResource);
 
         return updatedResource;
     }
 
+    /**
+     * Compares the resource with the state the stored entity was loaded with, as the resource is often the loaded
+     * entity itself, patched in place within the same persistence context.
+     */
+    private boolean isUnchanged(E existing, E resource) {
+        ChangeDetector<E> detector = changeDetector;
+        if (detector == null) {
+            return false;
+        }
+
+        EntityManagerFactory factory = entityManagerFactory;
+        return detector.isUnchanged(factory == null ? null : EntityManagerFactoryUtils.getTransactionalEntityManager(factory),
+                existing, resource);
+    }
+
     @Transactional
     public void delete(PI parentId, ID id) {
-        E entity = this.getById(parentId, id);
+        withTimeout(OperationClass.WRITE, () -> {
+            deleteEntity(parentId, id);
+            return null;
+        });
+    }
+
+    private void deleteEntity(PI parentId, ID id) {
+        E entity = this.getByIdForUpdate(parentId, id);
 
         OperationCheck operation = isDeletable(entity);
         if (!operation.isAllowed()) {
             throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
         }
 
+        Optional<DeletionPurger<E>> purger = getDeletionPurger();
+        if (purger.isPresent()) {
+            ((DeletionMarkable) entity).markForDeletion();
+            repository.save(entity);
+            purger.get().signal();
+            return;
+        }
+
         beforeDelete(entity);
         repository.delete(entity);
+        flushWithinDeadline();
+    }
+
+    /**
+     * Deletes all children of the parent with one set-based {@code DELETE ... WHERE parent = ?}, without loading
+     * them. {@link #isDeletableByParent} is checked and {@link #beforeDeleteByParent} runs first; by default these
+     * only load the children if {@link #hasPerEntityDeleteHooks()} returns {@code true}. The bulk delete bypasses
+     * JPA cascades and leaves children already loaded in the persistence context stale. With deferred deletion the
+     * children are marked for deletion with one set-based {@code UPDATE} instead, and the purger deletes them one
+     * by one.
+     *
+     * @param parentId the id of the parent entity
+     * @return the number of deleted or marked children
+     * @throws ResourceNotFoundException            if the parent does not exist
+     * @throws ConflictingResourceOperationException if the children must not be deleted
+     */
+    @Transactional
+    public long deleteAllByParent(PI parentId) {
+        return withTimeout(OperationClass.WRITE, () -> {
+            long deleted = deleteAllChildren(findParent(parentId));
+            flushWithinDeadline();
+            return deleted;
+        });
+    }
+
+    /**
+     * Replaces all children of the parent with the given entities in one transaction: the existing children are
+     * deleted as by {@link #deleteAllByParent}, and the new ones are inserted with one {@code saveAll}, which
+     * Hibernate sends as JDBC batches when {@code hibernate.jdbc.batch_size} is set. Every new entity is checked
+     * with {@link #isCreatable} before anything is deleted, and {@link #afterCreate} runs for each of them.
+     *
+     * @param parentId  the id of the parent entity
+     * @param resources the new children, already associated with the parent
+     * @return the saved children
+     * @throws ResourceNotFoundException            if the parent does not exist
+     * @throws ConflictingResourceOperationException if a new child must not be created or the children must not be deleted
+     */
+    @Transactional
+    public List<E> replaceAllByParent(PI parentId, List<E> resources) {
+        return withTimeout(OperationClass.WRITE, () -> {
+            P parent = findParent(parentId);
+            for (E resource : resources) {
+                OperationCheck operation = isCreatable(resource);
+                if (!operation.isAllowed()) {
+                    throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+                }
+            }
+
+            deleteAllChildren(parent);
+
+            Optional<HookOutbox<E, ID>> outbox = getHookOutbox();
+            List<E> savedResources = outbox.isPresent()
+                    ? resources.stream()
+                    .map(resource -> outbox.get().record(HookOutbox.Event.CREATED, () -> repository.save(resource), this::getEntityId))
+                    .toList()
+                    : repository.saveAll(resources);
+            flushWithinDeadline();
+
+            savedResources.forEach(this::afterCreate);
+            return savedResources;
+        });
+    }
+
+    private long deleteAllChildren(P parent) {
+        OperationCheck operation = isDeletableByParent(parent);
+        if (!operation.isAllowed()) {
+            throw new ConflictingResourceOperationException(operation.getMessage(), operation.getError());
+        }
+
+        String parentAttribute = getParentAttribute();
+        Optional<DeletionPurger<E>> purger = getDeletionPurger();
+        if (purger.isPresent()) {
+            String marker = getDeletionMarkerAttribute();
+            UpdateSpecification<E> mark = (root, update, builder) -> {
+                update.set(root.<Boolean>get(marker), true);
+                return builder.and(builder.equal(root.get(parentAttribute), parent), builder.isFalse(root.get(marker)));
+            };
+            long marked = specificationExecutor("Bulk deletion").update(mark);
+            purger.get().signal();
+            return marked;
+        }
+
+        beforeDeleteByParent(parent);
+        DeleteSpecification<E> spec = (root, delete, builder) -> builder.equal(root.get(parentAttribute), parent);
+        return specificationExecutor("Bulk deletion").delete(spec);
+    }
+
+    /**
+     * Returns whether {@link #delete} only marks entities for deletion and leaves the purge to a background worker.
+     */
+    public boolean isDeletionDeferred() {
+        return getDeletionPurger().isPresent();
+    }
+
+    /**
+     * Loads the children of a chunk of parents.
+     * The returned map must contain an entry, possibly an empty list, for every parent that exists
+     * and no entry for parents that do not.
+     * <p>
+     * The default implementation loads the parents with one {@code IN} query on their ids, and their children
+     * with one {@code IN} query on the parent attribute, which is fetched along to group the children by parent.
+     * Services whose repository does not implement {@link JpaSpecificationExecutor}, or whose parent uses an
+     * id class, load each parent and its children separately.
+     *
+     * @param parentIds the ids of the parent entities, at most {@link #getParentBatchSize()} of them
+     * @return the children of each existing parent, keyed by parent id
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<PI, List<E>> findByParentIds(List<PI> parentIds) {
+        AttributeReader<E> childReader = attributeReader;
+        AttributeReader<P> parentReader = parentAttributeReader;
+        if (childReader == null || parentReader == null || parentReader.getIdAttribute() == null
+                || !(repository instanceof JpaSpecificationExecutor<?>)) {
+            return findByEachParentId(parentIds);
+        }
+
+        String parentIdAttribute = parentReader.getIdAttribute();
+        Function<P, Object> parentId = parentReader.reader(parentIdAttribute);
+        Map<PI, List<E>> children = new HashMap<>();
+        for (P parent : parentRepository.findAllById(parentIds)) {
+            children.put((PI) parentId.apply(Hibernate.unproxy(parent, getParentClass())), new ArrayList<>());
+        }
+        if (children.isEmpty()) {
+            return children;
+        }
+
+        String parentAttribute = getParentAttribute();
+        Set<PI> existingIds = Set.copyOf(children.keySet());
+        Specification<E> spec = (root, query, builder) -> {
+            root.fetch(parentAttribute);
+            return root.get(parentAttribute).get(parentIdAttribute).in(existingIds);
+        };
+        Function<E, Object> parentOf = childReader.reader(parentAttribute);
+        for (E child : specificationExecutor("Multi-parent loading").findAll(spec)) {
+            P parent = Hibernate.unproxy((P) parentOf.apply(child), getParentClass());
+            children.get((PI) parentId.apply(parent)).add(child);
+        }
+        return children;
+    }
+
+    private Map<PI, List<E>> findByEachParentId(List<PI> parentIds) {
+        Map<PI, List<E>> children = new HashMap<>();
+        for (PI parentId : parentIds) {
+            parentRepository.findById(parentId)
+                    .ifPresent(parent -> children.put(parentId, findByParent(parent)));
+        }
+        return children;
+    }
+
+    /**
+     * Returns the maximum number of parent ids passed to a single {@link #findByParentIds} call.
+     * Keeps the {@code IN} lists below the bind parameter limits of the database.
+     *
+     * @return the chunk size for multi-parent loads
+     */
+    protected int getParentBatchSize() {
+        return 500;
+    }
+
+    /**
+     * Returns the filter applied to the search value of {@link #getByParent}.
+     * Subclasses can override to make children searchable; by default the search value is ignored.
+     *
+     * @return the filter criteria, or empty if children cannot be searched
+     */
+    public Optional<FilterCriteria> getFilterCriteria() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the fields that clients may sort pages of {@link #getByParent} by. The id attribute is always allowed.
+     * Subclasses should override to restrict sorting to indexed columns; on startup, allowed fields
+     * that do not lead an index are reported in the log. By default any field may be used.
+     *
+     * @return the allowed sort fields, or an empty set to allow any field
+     */
+    public Set<String> getAllowedSortFields() {
+        return Set.of();
+    }
+
+    /**
+     * Returns the name of the attribute of the child entity referencing its parent.
+     *
+     * @return the parent attribute used to scope {@link #getByParent} queries
+     */
+    protected String getParentAttribute() {
+        return "parent";
+    }
+
+    /**
+     * Returns the largest page size served by {@link #getByParent}; larger requests are clamped to it.
+     *
+     * @return the maximum page size
+     */
+    protected int getMaxPageSize() {
+        return 2000;
+    }
+
+    /**
+     * Returns the worker that purges entities marked for deletion.
+     * Subclasses can override to opt in to deferred deletion, in which case {@link #delete} only marks the
+     * entity, the entity must implement {@link DeletionMarkable}, and reads skip marked entities.
+     * The repository must also implement {@link JpaSpecificationExecutor} so the worker can query marked entities.
+     * By default entities are deleted synchronously.
+     *
+     * @return the deletion purger, or empty to delete synchronously
+     */
+    protected Optional<DeletionPurger<E>> getDeletionPurger() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the name of the boolean attribute marking entities for deletion.
+     *
+     * @return the attribute name used in queries for marked entities
+     */
+    protected String getDeletionMarkerAttribute() {
+        return "markedForDeletion";
+    }
+
+    /**
+     * Returns the outbox that runs {@link #afterCreateCommitted} and {@link #afterUpdateCommitted}.
+     * Subclasses can override to opt in to asynchronous hooks; by default no outbox entries are written
+     * and only the synchronous {@link #afterCreate} and {@link #afterUpdate} hooks run.
+     *
+     * @return the hook outbox, or empty to skip the asynchronous hooks
+     */
+    protected Optional<HookOutbox<E, ID>> getHookOutbox() {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the time the queries of an operation may take before they are cancelled.
+     * See {@link CrudService#getQueryTimeout} for how the timeout is applied.
+     *
+     * @param operation the class of the operation
+     * @return the query timeout, or empty for no timeout of its own
+     */
+    protected Optional<Duration> getQueryTimeout(OperationClass operation) {
+        return Optional.empty();
     }
 
     protected OperationCheck isCreatable(E resource) {
@@ -115,6 +612,28 @@ public abstract class NestedCrudService<P, E, PI, ID> {
         // default no-op
     }
 
+    /**
+     * Called asynchronously after the creation of an entity has committed, when {@link #getHookOutbox()}
+     * provides an outbox. Runs in its own transaction with the entity as currently stored, and may run more
+     * than once, so implementations must be idempotent. Throwing an exception schedules a retry.
+     * Subclasses can override this for slow side effects such as updating search indexes or notifying other services.
+     *
+     * @param createdEntity the entity that was created
+     */
+    protected void afterCreateCommitted(E createdEntity) {
+        // default no-op
+    }
+
+    /**
+     * Called asynchronously after the update of an entity has committed, when {@link #getHookOutbox()}
+     * provides an outbox. See {@link #afterCreateCommitted} for the delivery guarantees.
+     *
+     * @param updatedEntity the entity that was updated
+     */
+    protected void afterUpdateCommitted(E updatedEntity) {
+        // default no-op
+    }
+
     /**
      * Called before updating an entity.
      * Subclasses can override to preserve data from the existing entity
@@ -137,6 +656,17 @@ public abstract class NestedCrudService<P, E, PI, ID> {
         // default no-op
     }
 
+    /**
+     * Returns whether {@link #afterUpdate} is called for updates that leave the entity unchanged.
+     * Subclasses can override to keep running the hook for every update; by default it only runs
+     * when something was written.
+     *
+     * @return {@code true} to call {@link #afterUpdate} for unchanged updates
+     */
+    protected boolean isAfterUpdateCalledWhenUnchanged() {
+        return false;
+    }
+
     /**
      * Called before deleting the given entity.
      * Subclasses can override to clean up related data or enforce business rules.
@@ -146,4 +676,147 @@ public abstract class NestedCrudService<P, E, PI, ID> {
     protected void beforeDelete(E entity) {
         // default no-op
     }
+
+    /**
+     * Checks whether all children of the parent may be deleted by {@link #deleteAllByParent} and
+     * {@link #replaceAllByParent}. If {@link #hasPerEntityDeleteHooks()} returns {@code true}, the children are
+     * loaded and each of them is checked with {@link #isDeletable}; otherwise deletion is permitted. Subclasses can override to check the parent or
+     * run a set-based query instead, so that the children are never loaded.
+     *
+     * @param parent the parent whose children are to be deleted
+     * @return the result of the check, failing with the first child that must not be deleted
+     */
+    protected OperationCheck isDeletableByParent(P parent) {
+        if (!hasPerEntityDeleteHooks()) {
+            return OperationCheck.permitted();
+        }
+
+        for (E child : visible(findByParent(parent))) {
+            OperationCheck operation = isDeletable(child);
+            if (!operation.isAllowed()) {
+                return operation;
+            }
+        }
+        return OperationCheck.permitted();
+    }
+
+    /**
+     * Called before all children of the parent are deleted by a set-based delete.
+     * If {@link #hasPerEntityDeleteHooks()} returns {@code true}, the children are loaded and {@link #beforeDelete}
+     * is called for each of them.
+     * Subclasses can override to clean up related data with set-based statements instead.
+     *
+     * @param parent the parent whose children are about to be deleted
+     */
+    protected void beforeDeleteByParent(P parent) {
+        if (hasPerEntityDeleteHooks()) {
+            visible(findByParent(parent)).forEach(this::beforeDelete);
+        }
+    }
+
+    /**
+     * Returns whether {@link #deleteAllByParent} and {@link #replaceAllByParent} load the children to run
+     * {@link #isDeletable} and {@link #beforeDelete} for each of them. Subclasses overriding these hooks should
+     * return {@code true}, unless they override {@link #isDeletableByParent} and {@link #beforeDeleteByParent}
+     * with set-based equivalents.
+     *
+     * @return {@code true} to run the per-entity delete hooks for bulk deletes
+     */
+    protected boolean hasPerEntityDeleteHooks() {
+        return false;
+    }
+
+    /**
+     * Returns the next entities marked for deletion in id order, starting after the given one.
+     * Composite ids cannot be compared in a query, so for them the given number of entities that failed to be
+     * purged, which stay marked ahead of the rest, are skipped instead.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    List<E> findMarkedForDeletion(E after, int failed, int limit) {
+        AttributeReader<E> reader = attributeReader;
+        String idAttribute = reader == null || reader.getIdAttribute() == null ? "id" : reader.getIdAttribute();
+        Specification<E> spec = markedForDeletion(true);
+        Sort byId = Sort.by(idAttribute);
+
+        if (after == null || !(getEntityId(after) instanceof Comparable afterId)) {
+            int skipped = after == null ? 0 : failed;
+            List<E> marked = specificationExecutor("Deferred deletion")
+                    .findAll(spec, PageRequest.of(0, skipped + limit, byId)).getContent();
+            return marked.subList(Math.min(skipped, marked.size()), marked.size());
+        }
+
+        spec = spec.and((root, query, builder) -> builder.greaterThan(root.get(idAttribute), afterId));
+        return specificationExecutor("Deferred deletion").findAll(spec, PageRequest.of(0, limit, byId)).getContent();
+    }
+
+    Optional<E> findForHook(ID id) {
+        return repository.findById(id).filter(this::isVisible);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ID getEntityId(E entity) {
+        if (entity instanceof BaseEntity<?> baseEntity) {
+            return (ID) baseEntity.getId();
+        }
+        if (entity instanceof BaseCompositeKeyEntity<?> compositeKeyEntity) {
+            return (ID) compositeKeyEntity.getId();
+        }
+        throw new IllegalStateException("Asynchronous hooks of " + getResourceType()
+                + " require the entity to implement BaseEntity or BaseCompositeKeyEntity");
+    }
+
+    /**
+     * Deletes the entity as currently stored, if it is still marked for deletion.
+     */
+    void purge(E marked) {
+        repository.findById(getEntityId(marked))
+                .filter(entity -> ((DeletionMarkable) entity).isMarkedForDeletion())
+                .ifPresent(entity -> {
+                    beforeDelete(entity);
+                    repository.delete(entity);
+                });
+    }
+
+    private P findParent(PI parentId) {
+        return parentRepository.findById(parentId)
+                .orElseThrow(() -> new ResourceNotFoundException(getParentResourceType(), parentId.toString()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private JpaSpecificationExecutor<E> specificationExecutor(String feature) {
+        if (!(repository instanceof JpaSpecificationExecutor<?> specificationExecutor)) {
+            throw new IllegalStateException(feature + " of " + getResourceType()
+                    + " requires a repository implementing JpaSpecificationExecutor");
+        }
+        return (JpaSpecificationExecutor<E>) specificationExecutor;
+    }
+
+    private Specification<E> markedForDeletion(boolean marked) {
+        String attribute = getDeletionMarkerAttribute();
+        return (root, query, builder) -> marked ? builder.isTrue(root.<Boolean>get(attribute)) : builder.isFalse(root.<Boolean>get(attribute));
+    }
+
+    private List<E> visible(List<E> resources) {
+        return isDeletionDeferred() ? resources.stream().filter(this::isVisible).toList() : resources;
+    }
+
+    private boolean isVisible(E resource) {
+        return !(isDeletionDeferred() && resource instanceof DeletionMarkable markable && markable.isMarkedForDeletion());
+    }
+
+    private <V> V withTimeout(OperationClass operation, Supplier<V> action) {
+        Optional<Duration> timeout = getQueryTimeout(operation);
+        try {
+            return timeout.isPresent() ? QueryDeadline.within(timeout.get(), action) : action.get();
+        } catch (QueryTimeoutException | jakarta.persistence.QueryTimeoutException ex) {
+            throw new QueryTimeoutExceededException(getResourceType(), ex);
+        }
+    }
+
+    private void flushWithinDeadline() {
+        // Write the changes now rather than at commit, which may happen after the deadline is unbound
+        if (QueryDeadline.remaining().isPresent()) {
+            repository.flush();
+        }
+    }
 }
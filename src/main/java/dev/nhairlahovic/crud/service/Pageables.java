@@ -0,0 +1,51 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.error.CommonFieldErrorCode;
+import dev.nhairlahovic.crud.error.FieldErrorInfo;
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+import java.util.Set;
+
+final class Pageables {
+
+    private Pageables() {
+    }
+
+    /**
+     * Rejects sort fields outside the allowed ones, counting the sorts used, and clamps the page size.
+     * The id attribute is always allowed, and an empty set of allowed fields allows any field.
+     */
+    static Pageable check(Pageable pageable, Set<String> allowedSortFields, String idAttribute, int maxPageSize,
+                          String resourceType) {
+        if (pageable.isUnpaged()) {
+            return pageable;
+        }
+
+        if (!allowedSortFields.isEmpty()) {
+            for (Sort.Order order : pageable.getSort()) {
+                if (!order.getProperty().equals(idAttribute) && !allowedSortFields.contains(order.getProperty())) {
+                    throw new FieldValidationException("sort", FieldErrorInfo.builder()
+                            .code(CommonFieldErrorCode.INVALID)
+                            .message("must be one of the allowed sort fields")
+                            .rejectedValue(order.getProperty())
+                            .params(Map.of("allowedValues", allowedSortFields))
+                            .build());
+                }
+                Metrics.counter("crud.sort.usage",
+                        "resource", resourceType,
+                        "field", order.getProperty(),
+                        "direction", order.getDirection().name().toLowerCase()).increment();
+            }
+        }
+
+        if (pageable.getPageSize() > maxPageSize) {
+            return PageRequest.of(pageable.getPageNumber(), maxPageSize, pageable.getSort());
+        }
+        return pageable;
+    }
+}
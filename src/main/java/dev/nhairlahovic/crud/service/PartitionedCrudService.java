@@ -0,0 +1,331 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.error.CommonFieldErrorCode;
+import dev.nhairlahovic.crud.error.FieldErrorInfo;
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import dev.nhairlahovic.crud.exception.ResourceNotFoundException;
+import dev.nhairlahovic.crud.instrumentation.QueryDeadline;
+import dev.nhairlahovic.crud.limiter.OperationClass;
+import dev.nhairlahovic.crud.memory.SortComparator;
+import dev.nhairlahovic.crud.repository.JpaFilterRepository;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.transaction.Transactional;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CrudService} for entities spread over several databases, one {@link Shard} per database.
+ * <p>
+ * Operations on a single entity are routed to the shard chosen by the {@link Partitioner}, and updates and
+ * deletes run in a transaction of that shard's transaction manager instead of the caller's. {@link #getAll},
+ * {@link #getByPage} and {@link #getByIdIn} query all shards in parallel and merge the results: a page is
+ * assembled from the first {@code offset + size} entities of every shard, merged by the requested sort with
+ * the id as tie-breaker, so deep pages get more expensive with every shard and are limited by
+ * {@link #getMaxScatterOffset()}. The merge orders entities in memory as described in {@link SortComparator}.
+ * <p>
+ * Entities marked for deletion are looked up on every shard and purged in a transaction of their shard.
+ * Batched creates and reference tables are not supported. The inherited {@code repository} field refers to
+ * the first shard only.
+ *
+ * @param <T>  The entity type.
+ * @param <ID> The type of the identifier of the entity.
+ */
+public abstract class PartitionedCrudService<T, ID> extends CrudService<T, ID> {
+
+    private final List<Shard<T, ID>> shards;
+    private final List<TransactionTemplate> transactionTemplates;
+    private final Partitioner<T, ID> partitioner;
+    private final Executor fanOutExecutor;
+
+    protected PartitionedCrudService(List<Shard<T, ID>> shards, Partitioner<T, ID> partitioner) {
+        this(shards, partitioner, 8 * shards.size());
+    }
+
+    protected PartitionedCrudService(List<Shard<T, ID>> shards, Partitioner<T, ID> partitioner, int maxConcurrency) {
+        super(shards.get(0).repository());
+        this.shards = List.copyOf(shards);
+        this.transactionTemplates = this.shards.stream()
+                .map(shard -> new TransactionTemplate(shard.transactionManager()))
+                .toList();
+        this.partitioner = partitioner;
+        this.fanOutExecutor = new BoundedVirtualThreadExecutor("crud-shard-query", maxConcurrency);
+    }
+
+    @Override
+    public List<T> getAll(String filterValue) {
+        Optional<Specification<T>> spec = getQuerySpecification(filterValue);
+        return withTimeout(filterValue == null ? OperationClass.READ : OperationClass.SEARCH, () -> inParallel(shards.stream()
+                .<Supplier<List<T>>>map(shard -> () -> spec.isPresent()
+                        ? shard.repository().findAll(spec.get())
+                        : shard.repository().findAll())
+                .toList()))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    @Override
+    public List<CreateOutcome<T>> createBatch(List<T> resources) {
+        Map<Integer, List<Integer>> indexesByShard = new LinkedHashMap<>();
+        for (int i = 0; i < resources.size(); i++) {
+            indexesByShard.computeIfAbsent(partitionOfEntity(resources.get(i)), key -> new ArrayList<>()).add(i);
+        }
+
+        List<Map.Entry<Integer, List<Integer>>> groups = List.copyOf(indexesByShard.entrySet());
+        List<List<CreateOutcome<T>>> results = withTimeout(OperationClass.WRITE, () -> inParallel(groups.stream()
+                .<Supplier<List<CreateOutcome<T>>>>map(group -> () -> createBatch(
+                        group.getValue().stream().map(resources::get).toList(),
+                        shards.get(group.getKey()).repository()))
+                .toList()));
+
+        List<CreateOutcome<T>> outcomes = new ArrayList<>(Collections.nCopies(resources.size(), null));
+        for (int i = 0; i < groups.size(); i++) {
+            List<Integer> indexes = groups.get(i).getValue();
+            for (int j = 0; j < indexes.size(); j++) {
+                outcomes.set(indexes.get(j), results.get(i).get(j));
+            }
+        }
+        return outcomes;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public T update(ID id, T resource) throws ResourceNotFoundException {
+        return transactionTemplates.get(partitionOfId(id)).execute(status -> super.update(id, resource));
+    }
+
+    /**
+     * Returns the entity manager factory of the first shard, whose metamodel the service is bound to.
+     */
+    @Override
+    public Optional<EntityManagerFactory> getEntityManagerFactory() {
+        return Optional.ofNullable(entityManagerFactoryOf(shards.get(0)));
+    }
+
+    @Override
+    EntityManagerFactory entityManagerFactoryFor(ID id) {
+        return entityManagerFactoryOf(shards.get(partitionOfId(id)));
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void delete(ID id) {
+        transactionTemplates.get(partitionOfId(id)).executeWithoutResult(status -> super.delete(id));
+    }
+
+    @Override
+    public List<T> getByIdIn(List<ID> ids) {
+        Map<Integer, List<ID>> idsByShard = new LinkedHashMap<>();
+        for (ID id : ids) {
+            idsByShard.computeIfAbsent(partitionOfId(id), key -> new ArrayList<>()).add(id);
+        }
+
+        List<Supplier<List<T>>> queries = new ArrayList<>();
+        idsByShard.forEach((index, shardIds) -> {
+            JpaFilterRepository<T, ID> shardRepository = shards.get(index).repository();
+            for (List<ID> chunk : Batches.chunk(shardIds, getIdBatchSize())) {
+                queries.add(() -> shardRepository.findAllById(chunk));
+            }
+        });
+        return withTimeout(OperationClass.READ, () -> inParallel(queries)).stream()
+                .flatMap(List::stream)
+                .filter(this::isVisible)
+                .toList();
+    }
+
+    /**
+     * Returns the largest offset a page may start at. Every shard loads {@code offset + size} entities
+     * for a page, so deeper pages are rejected.
+     *
+     * @return the maximum page offset
+     */
+    protected long getMaxScatterOffset() {
+        return 10_000;
+    }
+
+    /**
+     * Queries the shards in parallel on a bounded pool of virtual threads.
+     * Subclasses can override to use another executor, or return empty to query the shards one after another.
+     *
+     * @return the executor for the queries to the shards
+     */
+    @Override
+    protected Optional<Executor> getParallelQueryExecutor() {
+        return Optional.of(fanOutExecutor);
+    }
+
+    @Override
+    protected final boolean isReferenceTable() {
+        return false;
+    }
+
+    @Override
+    protected final Optional<CreateCoalescer<T, ID>> getCreateCoalescer() {
+        return Optional.empty();
+    }
+
+    @Override
+    Page<T> findPage(Pageable pageable, String filterValue) {
+        Optional<Specification<T>> spec = getQuerySpecification(filterValue);
+        if (pageable.isUnpaged()) {
+            List<List<T>> results = inParallel(shards.stream()
+                    .<Supplier<List<T>>>map(shard -> () -> spec.isPresent()
+                            ? shard.repository().findAll(spec.get(), pageable.getSort())
+                            : shard.repository().findAll(pageable.getSort()))
+                    .toList());
+            List<T> merged = merge(results, pageable.getSort(), Integer.MAX_VALUE);
+            return new PageImpl<>(merged, pageable, merged.size());
+        }
+
+        if (pageable.getOffset() > getMaxScatterOffset()) {
+            throw new FieldValidationException("page", FieldErrorInfo.builder()
+                    .code(CommonFieldErrorCode.INVALID)
+                    .message("must not start beyond the maximum offset")
+                    .rejectedValue(pageable.getPageNumber())
+                    .params(Map.of("maxOffset", getMaxScatterOffset()))
+                    .build());
+        }
+
+        // Every shard must order its rows exactly as the merge does, so ties are broken by id
+        Sort sort = pageable.getSort();
+        String idAttribute = getIdAttributeName();
+        if (sort.getOrderFor(idAttribute) == null) {
+            sort = sort.and(Sort.by(idAttribute));
+        }
+        int end = Math.toIntExact(pageable.getOffset() + pageable.getPageSize());
+        Pageable head = PageRequest.of(0, end, sort);
+
+        List<Page<T>> pages = inParallel(shards.stream()
+                .<Supplier<Page<T>>>map(shard -> () -> spec.isPresent()
+                        ? shard.repository().findAll(spec.get(), head)
+                        : shard.repository().findAll(head))
+                .toList());
+
+        List<T> merged = merge(pages.stream().map(Page::getContent).toList(), sort, end);
+        int from = (int) Math.min(pageable.getOffset(), merged.size());
+        long total = pages.stream().mapToLong(Page::getTotalElements).sum();
+        return new PageImpl<>(List.copyOf(merged.subList(from, merged.size())), pageable, total);
+    }
+
+    @Override
+    List<JpaFilterRepository<T, ID>> allRepositories() {
+        return shards.stream().map(Shard::repository).toList();
+    }
+
+    @Override
+    void purge(T marked) {
+        transactionTemplates.get(partitionOfId(getEntityId(marked))).executeWithoutResult(status -> super.purge(marked));
+    }
+
+    @Override
+    JpaFilterRepository<T, ID> repositoryForId(ID id) {
+        return shards.get(partitionOfId(id)).repository();
+    }
+
+    @Override
+    JpaFilterRepository<T, ID> repositoryForEntity(T resource) {
+        return shards.get(partitionOfEntity(resource)).repository();
+    }
+
+    private static EntityManagerFactory entityManagerFactoryOf(Shard<?, ?> shard) {
+        return shard.transactionManager() instanceof JpaTransactionManager transactionManager
+                ? transactionManager.getEntityManagerFactory()
+                : null;
+    }
+
+    private int partitionOfId(ID id) {
+        return checkPartition(partitioner.partitionOfId(id));
+    }
+
+    private int partitionOfEntity(T resource) {
+        return checkPartition(partitioner.partitionOfEntity(resource));
+    }
+
+    private int checkPartition(int partition) {
+        if (partition < 0 || partition >= shards.size()) {
+            throw new IllegalStateException("Partition %d of %s does not exist, there are %d shards"
+                    .formatted(partition, getResourceType(), shards.size()));
+        }
+        return partition;
+    }
+
+    private <V> List<V> inParallel(List<Supplier<V>> queries) {
+        Optional<Executor> executor = getParallelQueryExecutor();
+        if (executor.isEmpty() || queries.size() <= 1) {
+            return queries.stream().map(Supplier::get).toList();
+        }
+
+        List<CompletableFuture<V>> results = queries.stream()
+                .map(query -> CompletableFuture.supplyAsync(QueryDeadline.propagate(query), executor.get()))
+                .toList();
+        return results.stream()
+                .map(CrudService::join)
+                .toList();
+    }
+
+    /**
+     * Merges lists that are each ordered by the sort into one ordered list of at most {@code limit} entities.
+     */
+    private List<T> merge(List<List<T>> sorted, Sort sort, int limit) {
+        if (sort.isUnsorted()) {
+            return sorted.stream().flatMap(List::stream).limit(limit).toList();
+        }
+
+        Comparator<T> comparator = SortComparator.of(sort,
+                (entity, property) -> PropertyAccessorFactory.forDirectFieldAccess(entity).getPropertyValue(property));
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((left, right) -> comparator.compare(left.head(), right.head()));
+        for (List<T> list : sorted) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor<>(list, 0));
+            }
+        }
+
+        List<T> merged = new ArrayList<>();
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor<T> cursor = heads.poll();
+            merged.add(cursor.head());
+            if (cursor.index() + 1 < cursor.list().size()) {
+                heads.add(new Cursor<>(cursor.list(), cursor.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * One database holding a partition of the entities.
+     *
+     * @param repository         the repository of the entity in the database
+     * @param transactionManager the transaction manager of the database
+     * @param <T>                The entity type.
+     * @param <ID>               The type of the identifier of the entity.
+     */
+    public record Shard<T, ID>(JpaFilterRepository<T, ID> repository, PlatformTransactionManager transactionManager) {
+    }
+
+    private record Cursor<T>(List<T> list, int index) {
+
+        T head() {
+            return list.get(index);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package dev.nhairlahovic.crud.service;
+
+/**
+ * Assigns the entities of a {@link PartitionedCrudService} to its shards.
+ * Both methods must agree: an entity stored on a shard must be found there by its id,
+ * so generated ids have to encode the shard, for example through per-shard id ranges.
+ *
+ * @param <T>  The entity type.
+ * @param <ID> The type of the identifier of the entity.
+ */
+public interface Partitioner<T, ID> {
+
+    /**
+     * Returns the index of the shard storing the entity with the given id.
+     *
+     * @param id the id of the entity
+     * @return the shard index, from {@code 0} to the number of shards minus one
+     */
+    int partitionOfId(ID id);
+
+    /**
+     * Returns the index of the shard a new entity is stored in, typically derived from its tenant or region.
+     *
+     * @param entity the entity to be created
+     * @return the shard index, from {@code 0} to the number of shards minus one
+     */
+    int partitionOfEntity(T entity);
+}
@@ -0,0 +1,80 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.exception.ConcurrencyLimitExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Shares one in-flight call between concurrent callers asking for the same key.
+ * The first caller runs the query and every caller that arrives while it is running waits for,
+ * and receives, the same result or exception. Waiting is bounded by {@code maxWait}; a caller
+ * that waits longer is shed with a {@link ConcurrencyLimitExceededException} instead of running the
+ * query itself, so a slow database still sees one query per key.
+ * <p>
+ * Results are not cached: once the call completes, the next caller for the key starts a new one.
+ * Because the result is shared, it should be immutable and detached from any persistence context,
+ * such as a response DTO; callers must not modify it.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Duration maxWait;
+
+    public SingleFlight(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Runs the loader, or joins the call that is already running for the same key.
+     *
+     * @param resourceType the type of the resource loaded, reported when a caller stops waiting
+     * @param key          identifies the call; keys must implement {@code equals} and {@code hashCode}
+     * @param loader       the call to run if none is in flight for the key
+     * @param <V>          The type of the result.
+     * @return the result of the shared call
+     * @throws ConcurrencyLimitExceededException if the shared call does not complete within {@code maxWait}
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V execute(String resourceType, Object key, Supplier<V> loader) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+
+        if (existing == null) {
+            try {
+                V result = loader.get();
+                call.complete(result);
+                return result;
+            } catch (RuntimeException | Error ex) {
+                call.completeExceptionally(ex);
+                throw ex;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+
+        try {
+            return (V) existing.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            // Querying directly would multiply the load on a database that is already slow
+            throw new ConcurrencyLimitExceededException(resourceType, maxWait);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a shared call", ex);
+        }
+    }
+}
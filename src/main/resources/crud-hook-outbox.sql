@@ -0,0 +1,13 @@
+-- Outbox for the asynchronous hooks of NestedCrudService, see HookOutbox.
+CREATE TABLE crud_hook_outbox (
+    id              VARCHAR(36)   NOT NULL PRIMARY KEY,
+    resource_type   VARCHAR(255)  NOT NULL,
+    event           VARCHAR(32)   NOT NULL,
+    entity_id       VARCHAR(1024) NOT NULL,
+    attempts        INT           NOT NULL,
+    next_attempt_at TIMESTAMP     NOT NULL,
+    last_error      VARCHAR(1000),
+    created_at      TIMESTAMP     NOT NULL
+);
+
+CREATE INDEX crud_hook_outbox_due ON crud_hook_outbox (resource_type, next_attempt_at);
@@ -0,0 +1,157 @@
+package dev.nhairlahovic.crud.aot;
+
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductController;
+import dev.nhairlahovic.crud.fixture.ProductDto;
+import dev.nhairlahovic.crud.fixture.ProductMapper;
+import dev.nhairlahovic.crud.fixture.ProductRequest;
+import dev.nhairlahovic.crud.fixture.ProductService;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.ReviewController;
+import dev.nhairlahovic.crud.fixture.ReviewDto;
+import dev.nhairlahovic.crud.fixture.ReviewRequest;
+import dev.nhairlahovic.crud.fixture.ReviewService;
+import dev.nhairlahovic.crud.service.CrudService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.generate.ClassNameGenerator;
+import org.springframework.aot.generate.DefaultGenerationContext;
+import org.springframework.aot.generate.InMemoryGeneratedFiles;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.beans.factory.aot.BeanRegistrationAotContribution;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RegisteredBean;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.javapoet.ClassName;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrudBeanRegistrationAotProcessorTest {
+
+    private final CrudBeanRegistrationAotProcessor processor = new CrudBeanRegistrationAotProcessor();
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    private DefaultGenerationContext generationContext;
+
+    @BeforeEach
+    void setUp() {
+        generationContext = new DefaultGenerationContext(
+                new ClassNameGenerator(ClassName.get("com.example", "Test")), new InMemoryGeneratedFiles());
+    }
+
+    @Test
+    void registersControllerTypesAndBinding() {
+        process("productController", ProductController.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ProductController.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Product.class);
+        assertDeclaredFieldsAccessible(hints, ProductRequest.class);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ProductDto.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(ProductDto.class, "getName")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(ProductRequest.class, "setName")).accepts(hints);
+    }
+
+    @Test
+    void registersMapperTypes() {
+        process("productMapper", ProductMapper.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ProductMapper.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Product.class);
+        assertDeclaredFieldsAccessible(hints, ProductRequest.class);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ProductDto.class)).accepts(hints);
+    }
+
+    @Test
+    void registersServiceAndEntity() {
+        process("productService", ProductService.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ProductService.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Product.class);
+    }
+
+    @Test
+    void registersNestedControllerTypes() {
+        process("reviewController", ReviewController.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ReviewController.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Review.class);
+        assertDeclaredFieldsAccessible(hints, Product.class);
+        assertDeclaredFieldsAccessible(hints, ReviewRequest.class);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(ReviewDto.class, "getText")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethodInvocation(ReviewRequest.class, "setText")).accepts(hints);
+    }
+
+    @Test
+    void registersNestedServiceAndEntities() {
+        process("reviewService", ReviewService.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ReviewService.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Review.class);
+        assertDeclaredFieldsAccessible(hints, Product.class);
+    }
+
+    @Test
+    void registersFieldsInheritedByTheEntity() {
+        process("articleService", ArticleService.class);
+        RuntimeHints hints = generationContext.getRuntimeHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(ArticleService.class)).accepts(hints);
+        assertDeclaredFieldsAccessible(hints, Article.class);
+        assertDeclaredFieldsAccessible(hints, AuditedEntity.class);
+    }
+
+    @Test
+    void ignoresOtherBeans() {
+        beanFactory.registerBeanDefinition("other", new RootBeanDefinition(String.class));
+
+        assertThat(processor.processAheadOfTime(RegisteredBean.of(beanFactory, "other"))).isNull();
+    }
+
+    private void process(String beanName, Class<?> beanClass) {
+        beanFactory.registerBeanDefinition(beanName, new RootBeanDefinition(beanClass));
+        BeanRegistrationAotContribution contribution = processor.processAheadOfTime(RegisteredBean.of(beanFactory, beanName));
+        assertThat(contribution).isNotNull();
+        contribution.applyTo(generationContext, null);
+    }
+
+    private static void assertDeclaredFieldsAccessible(RuntimeHints hints, Class<?> type) {
+        Field[] fields = Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+        assertThat(fields).isNotEmpty();
+        for (Field field : fields) {
+            assertThat(RuntimeHintsPredicates.reflection().onFieldAccess(field))
+                    .as("access to %s.%s", type.getSimpleName(), field.getName())
+                    .accepts(hints);
+        }
+    }
+
+    static class AuditedEntity {
+
+        private Long id;
+
+        private Instant createdAt;
+    }
+
+    static class Article extends AuditedEntity {
+
+        private String title;
+    }
+
+    abstract static class ArticleService extends CrudService<Article, Long> {
+
+        ArticleService() {
+            super(null);
+        }
+    }
+}
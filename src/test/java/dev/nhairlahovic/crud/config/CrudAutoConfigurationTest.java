@@ -0,0 +1,55 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.instrumentation.DeadlineFilter;
+import dev.nhairlahovic.crud.instrumentation.InstrumentedDataSource;
+import dev.nhairlahovic.crud.instrumentation.InstrumentedDataSourcePostProcessor;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrudAutoConfigurationTest {
+
+    // Like SpringApplication, convert durations such as "5s" in property values
+    private final WebApplicationContextRunner contextRunner = new WebApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withConfiguration(AutoConfigurations.of(CrudAutoConfiguration.class))
+            .withBean(DataSource.class, () -> new DriverManagerDataSource("jdbc:h2:mem:test"));
+
+    @Test
+    void queryTimeoutsAreDisabledByDefault() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(InstrumentedDataSourcePostProcessor.class);
+            assertThat(context).doesNotHaveBean(DeadlineFilter.class);
+            assertThat(context.getBean(DataSource.class)).isNotInstanceOf(InstrumentedDataSource.class);
+        });
+    }
+
+    @Test
+    void queryTimeoutsInstrumentDataSourceAndBindRequestDeadlines() {
+        contextRunner
+                .withPropertyValues("crud.query-timeouts.enabled=true", "crud.query-timeouts.max-request-timeout=5s")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(InstrumentedDataSourcePostProcessor.class);
+                    assertThat(context).hasSingleBean(DeadlineFilter.class);
+                    assertThat(context.getBean(DataSource.class)).isInstanceOf(InstrumentedDataSource.class);
+                });
+    }
+
+    @Test
+    void deadlineFilterRequiresServletApplication() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(CrudAutoConfiguration.class))
+                .withPropertyValues("crud.query-timeouts.enabled=true")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(InstrumentedDataSourcePostProcessor.class);
+                    assertThat(context).doesNotHaveBean(DeadlineFilter.class);
+                });
+    }
+}
@@ -0,0 +1,211 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.Shipment;
+import dev.nhairlahovic.crud.service.CrudService;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import dev.nhairlahovic.crud.service.PartitionedCrudService;
+import dev.nhairlahovic.crud.service.Partitioner;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that with several persistence units every service is bound to the unit managing its entity.
+ */
+class CrudServiceInitializerTest {
+
+    private final List<LocalContainerEntityManagerFactoryBean> factories = new ArrayList<>();
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @AfterEach
+    void tearDown() {
+        factories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+    }
+
+    @Test
+    void bindsEveryServiceToThePersistenceUnitOfItsEntity() {
+        EntityManagerFactory catalog = factory("catalog", Product.class, Review.class);
+        EntityManagerFactory logistics = factory("logistics", Shipment.class);
+        EntityManagerFactory shard = factory("shard", Shipment.class);
+        beanFactory.registerSingleton("catalog", catalog);
+        beanFactory.registerSingleton("logistics", logistics);
+
+        var products = new RecordingService<>(Product.class);
+        var shipments = new RecordingService<>(Shipment.class);
+        var partitionedShipments = new PartitionedShipmentService(shard);
+        var reviews = new ReviewService();
+        beanFactory.registerSingleton("products", products);
+        beanFactory.registerSingleton("shipments", shipments);
+        beanFactory.registerSingleton("partitionedShipments", partitionedShipments);
+        beanFactory.registerSingleton("reviews", reviews);
+
+        initializer().afterSingletonsInstantiated();
+
+        assertThat(products.bound).isSameAs(catalog);
+        assertThat(shipments.bound).isSameAs(logistics);
+        assertThat(partitionedShipments.bound).isSameAs(shard);
+        assertThat(reviews.bound).isSameAs(catalog);
+    }
+
+    @Test
+    void skipsServicesWhoseEntityNoPersistenceUnitManages() {
+        EntityManagerFactory catalog = factory("catalog", Product.class, Review.class);
+        beanFactory.registerSingleton("catalog", catalog);
+
+        var products = new RecordingService<>(Product.class);
+        var shipments = new RecordingService<>(Shipment.class);
+        beanFactory.registerSingleton("products", products);
+        beanFactory.registerSingleton("shipments", shipments);
+
+        initializer().afterSingletonsInstantiated();
+
+        assertThat(products.bound).isSameAs(catalog);
+        assertThat(shipments.bound).isNull();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CrudServiceInitializer initializer() {
+        return new CrudServiceInitializer(beanFactory.getBeanProvider(EntityManagerFactory.class),
+                (ObjectProvider) beanFactory.getBeanProvider(CrudService.class),
+                (ObjectProvider) beanFactory.getBeanProvider(NestedCrudService.class),
+                beanFactory.getBeanProvider(DataSource.class));
+    }
+
+    private EntityManagerFactory factory(String name, Class<?>... entityClasses) {
+        var factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build());
+        factory.setManagedTypes(PersistenceManagedTypes.of(
+                Arrays.stream(entityClasses).map(Class::getName).toList(), List.of()));
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factory.setPersistenceUnitName(name);
+        factory.afterPropertiesSet();
+        factories.add(factory);
+        return factory.getObject();
+    }
+
+    static class RecordingService<T> extends CrudService<T, Long> {
+
+        private final Class<T> entityClass;
+        private EntityManagerFactory bound;
+
+        RecordingService(Class<T> entityClass) {
+            super(null);
+            this.entityClass = entityClass;
+        }
+
+        @Override
+        public String getResourceType() {
+            return entityClass.getSimpleName();
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Class<T> getEntityClass() {
+            return entityClass;
+        }
+
+        @Override
+        public void bindEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+            this.bound = entityManagerFactory;
+            super.bindEntityManagerFactory(entityManagerFactory);
+        }
+    }
+
+    static class PartitionedShipmentService extends PartitionedCrudService<Shipment, Long> {
+
+        private EntityManagerFactory bound;
+
+        PartitionedShipmentService(EntityManagerFactory shard) {
+            super(List.of(new Shard<>(null, new JpaTransactionManager(shard))), new Partitioner<>() {
+                @Override
+                public int partitionOfId(Long id) {
+                    return 0;
+                }
+
+                @Override
+                public int partitionOfEntity(Shipment entity) {
+                    return 0;
+                }
+            });
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Shipment";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void bindEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+            this.bound = entityManagerFactory;
+            super.bindEntityManagerFactory(entityManagerFactory);
+        }
+    }
+
+    static class ReviewService extends NestedCrudService<Product, Review, Long, Long> {
+
+        private EntityManagerFactory bound;
+
+        ReviewService() {
+            super(null, null);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Review";
+        }
+
+        @Override
+        public String getParentResourceType() {
+            return "Product";
+        }
+
+        @Override
+        protected List<Review> findByParent(Product parent) {
+            return List.of();
+        }
+
+        @Override
+        protected Optional<Review> findByIdAndParent(Long id, Product parent) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void bindEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+            this.bound = entityManagerFactory;
+            super.bindEntityManagerFactory(entityManagerFactory);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package dev.nhairlahovic.crud.config;
+
+import dev.nhairlahovic.crud.controller.CrudController;
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.service.CrudService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.DefaultApplicationArguments;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the warm-up runs its rounds, and that a slow service does not hold the startup past the budget.
+ */
+class CrudWarmUpRunnerTest {
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void runsEveryRoundWithinTheBudget() {
+        var service = new WarmUpService(null);
+        beanFactory.registerSingleton("products", service);
+
+        runner(Duration.ofSeconds(30), 5).run(new DefaultApplicationArguments());
+
+        assertThat(service.warmUps).hasValue(5);
+    }
+
+    @Test
+    void slowServiceDoesNotHoldTheStartupPastTheBudget() throws InterruptedException {
+        var slow = new WarmUpService(release);
+        var fast = new WarmUpService(null);
+        beanFactory.registerSingleton("slow", slow);
+        beanFactory.registerSingleton("fast", fast);
+
+        long start = System.nanoTime();
+        runner(Duration.ofMillis(200), 5).run(new DefaultApplicationArguments());
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(5));
+        assertThat(slow.warmUps).hasValue(1);
+
+        // The worker finishes the running warm-up and starts no other
+        release.countDown();
+        assertThat(slow.finished.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(100);
+        assertThat(slow.warmUps).hasValue(1);
+        assertThat(fast.warmUps).hasValue(0);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CrudWarmUpRunner runner(Duration budget, int iterations) {
+        return new CrudWarmUpRunner((ObjectProvider) beanFactory.getBeanProvider(CrudService.class),
+                (ObjectProvider) beanFactory.getBeanProvider(CrudController.class),
+                beanFactory.getBeanProvider(JsonMapper.class), budget, iterations, "a");
+    }
+
+    static class WarmUpService extends CrudService<Product, Long> {
+
+        private final CountDownLatch release;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicInteger warmUps = new AtomicInteger();
+
+        WarmUpService(CountDownLatch release) {
+            super(null);
+            this.release = release;
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Product";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.empty();
+        }
+
+        @Override
+        public void warmUp(String searchValue) {
+            warmUps.incrementAndGet();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package dev.nhairlahovic.crud.controller;
+
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.ReviewRepository;
+import dev.nhairlahovic.crud.fixture.ReviewService;
+import dev.nhairlahovic.crud.service.DeletionPurger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that deletes answer {@code 204 No Content}, and {@code 202 Accepted} when the entity is only marked
+ * for deletion.
+ */
+@SpringBootTest(classes = CrudTestApplication.class)
+class DeleteStatusTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MockMvc mockMvc;
+    private DeletionPurger<Review> purger;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        product = productRepository.save(new Product("Pear", "fruit", 8));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reviewService.setDeletionPurger(null);
+        if (purger != null) {
+            purger.close();
+        }
+    }
+
+    @Test
+    void deleteAnswersNoContent() throws Exception {
+        Review review = reviewRepository.save(new Review(product, "Juicy", 5));
+
+        mockMvc.perform(delete("/products/{parentId}/reviews/{id}", product.getId(), review.getId()))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete("/products/{id}", product.getId()))
+                .andExpect(status().isNoContent());
+
+        assertThat(reviewRepository.findById(review.getId())).isEmpty();
+        assertThat(productRepository.findById(product.getId())).isEmpty();
+    }
+
+    @Test
+    void deferredDeleteAnswersAccepted() throws Exception {
+        Review review = reviewRepository.save(new Review(product, "Juicy", 5));
+        // Never runs on its own, so the review stays marked
+        purger = new DeletionPurger<>(reviewService, transactionManager, 100, Duration.ofHours(1), Duration.ofHours(1), 1);
+        reviewService.setDeletionPurger(purger);
+
+        mockMvc.perform(delete("/products/{parentId}/reviews/{id}", product.getId(), review.getId()))
+                .andExpect(status().isAccepted());
+
+        assertThat(reviewRepository.findById(review.getId())).get()
+                .extracting(Review::isMarkedForDeletion).isEqualTo(true);
+    }
+}
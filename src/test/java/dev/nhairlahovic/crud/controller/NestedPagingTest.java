@@ -0,0 +1,90 @@
+package dev.nhairlahovic.crud.controller;
+
+import dev.nhairlahovic.crud.exception.FieldValidationException;
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.ReviewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that a parent's children are paged through query parameters on the collection path, searched with the
+ * service's filter criteria and sorted only by its allowed sort fields.
+ */
+@SpringBootTest(classes = CrudTestApplication.class)
+class NestedPagingTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private MockMvc mockMvc;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        product = productRepository.save(new Product("Plum", "fruit", 6));
+        reviewRepository.save(new Review(product, "Sweet", 4));
+        reviewRepository.save(new Review(product, "Sour", 2));
+        reviewRepository.save(new Review(product, "Very sweet", 5));
+        Product other = productRepository.save(new Product("Fig", "fruit", 9));
+        reviewRepository.save(new Review(other, "Sweet", 3));
+    }
+
+    @Test
+    void collectionPathWithoutPageReturnsAllChildren() throws Exception {
+        mockMvc.perform(get("/products/{parentId}/reviews", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)));
+    }
+
+    @Test
+    void collectionPathWithPageReturnsAPage() throws Exception {
+        mockMvc.perform(get("/products/{parentId}/reviews", product.getId())
+                        .param("page", "0")
+                        .param("size", "2")
+                        .param("sort", "rating,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].rating", contains(5, 4)))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    void pageIsSearchedWithTheFilterCriteria() throws Exception {
+        mockMvc.perform(get("/products/{parentId}/reviews", product.getId())
+                        .param("page", "0")
+                        .param("search", "sweet"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].text", contains("Sweet", "Very sweet")))
+                .andExpect(jsonPath("$.totalElements").value(2));
+    }
+
+    @Test
+    void sortByAFieldThatIsNotAllowedIsRejected() {
+        assertThatThrownBy(() -> mockMvc.perform(get("/products/{parentId}/reviews", product.getId())
+                        .param("page", "0")
+                        .param("sort", "text")))
+                .hasRootCauseInstanceOf(FieldValidationException.class);
+    }
+}
@@ -0,0 +1,288 @@
+package dev.nhairlahovic.crud.controller;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductDto;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import dev.nhairlahovic.crud.mapper.ResourceMapper;
+import dev.nhairlahovic.crud.model.OperationCheck;
+import dev.nhairlahovic.crud.service.CrudService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.Data;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Imports mixed bodies through the import endpoints and checks the streamed report: failed records are reported
+ * with their line numbers, records with a stored id are updated, a batch failing in the database falls back to
+ * saving its records one by one, and the persistence context is cleared after every batch.
+ */
+@SpringBootTest(classes = {CrudTestApplication.class, ResourceImporterTest.Services.class})
+class ResourceImporterTest {
+
+    private static final String TOO_LONG = "x".repeat(300);
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ImportMapper importMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MockMvc mockMvc;
+    private Product stored;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        stored = productRepository.save(new Product("Lemon", "fruit", 2));
+    }
+
+    @Test
+    void ndjsonReportsFailedLinesAndUpserts() throws Exception {
+        String body = String.join("\n",
+                "{\"name\":\"Apple\",\"category\":\"import\",\"price\":3}",
+                "{\"name\":\"Pear\",\"category\":\"import\",\"price\":-1}",
+                "{\"name\":",
+                "",
+                "[1,2]",
+                "{\"id\":" + stored.getId() + ",\"name\":\"Lime\",\"category\":\"fruit\",\"price\":4}",
+                "{\"name\":\"" + TOO_LONG + "\",\"category\":\"import\",\"price\":1}",
+                "{\"name\":\"Plum\",\"category\":\"import\",\"price\":2}",
+                "{\"name\":\"Contraband\",\"category\":\"banned\",\"price\":1}",
+                "{\"id\":999999,\"name\":\"Fig\",\"category\":\"import\",\"price\":5}");
+
+        List<JsonNode> report = importBody(MediaType.APPLICATION_NDJSON_VALUE, body, true);
+
+        assertThat(report.subList(0, report.size() - 1))
+                .extracting(line -> line.get("line").asLong())
+                .containsExactly(2L, 3L, 5L, 7L, 9L);
+        assertThat(report.get(0).at("/error/fieldErrors/price").isMissingNode()).isFalse();
+        assertThat(report.get(1).at("/error/message").asString()).startsWith("Malformed record");
+        assertThat(report.get(2).at("/error/message").asString()).isEqualTo("Record must be an object");
+        assertThat(summary(report)).containsExactly(3L, 1L, 5L, 1L);
+
+        assertThat(productRepository.findById(stored.getId())).get()
+                .extracting(Product::getName).isEqualTo("Lime");
+        assertThat(productRepository.findAll())
+                .filteredOn(product -> "import".equals(product.getCategory()))
+                .extracting(Product::getName)
+                .containsExactlyInAnyOrder("Apple", "Plum", "Fig");
+        assertThat(productRepository.findById(999999L)).isEmpty();
+    }
+
+    @Test
+    void csvReportsFailedLinesByLineNumber() throws Exception {
+        String body = String.join("\n",
+                "name,category,price",
+                "Cherry,csv,3",
+                "Grape,csv,abc",
+                ",csv,2",
+                "Melon,csv,7");
+
+        List<JsonNode> report = importBody("text/csv", body, false);
+
+        assertThat(report.subList(0, report.size() - 1))
+                .extracting(line -> line.get("line").asLong())
+                .containsExactly(3L, 4L);
+        assertThat(report.get(1).at("/error/fieldErrors/name").isMissingNode()).isFalse();
+        assertThat(summary(report)).containsExactly(2L, 0L, 2L, 1L);
+        assertThat(productRepository.findAll())
+                .filteredOn(product -> "csv".equals(product.getCategory()))
+                .extracting(Product::getName)
+                .containsExactlyInAnyOrder("Cherry", "Melon");
+    }
+
+    @Test
+    void malformedCsvEndsTheImport() throws Exception {
+        String body = String.join("\n",
+                "name,category,price",
+                "Peach,broken,3",
+                "\"Apricot,broken,4",
+                "Mango,broken,5");
+
+        List<JsonNode> report = importBody("text/csv", body, false);
+
+        assertThat(report.getLast().get("complete").asBoolean()).isFalse();
+        assertThat(report.getFirst().at("/error/message").asString()).startsWith("Malformed record");
+    }
+
+    @Test
+    void persistenceContextIsClearedAfterEveryBatch() {
+        var importer = new ResourceImporter<>(importService, importMapper, validator, jsonMapper,
+                entityManagerFactory, ImportRequest.class, Long.class, 2, true, new ByteArrayOutputStream());
+        String body = "{\"id\":" + stored.getId() + ",\"name\":\"Lime\",\"category\":\"fruit\",\"price\":4}\n"
+                + "{\"name\":\"Apple\",\"category\":\"context\",\"price\":3}\n";
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory);
+            Product loaded = entityManager.find(Product.class, stored.getId());
+            assertThat(entityManager.contains(loaded)).isTrue();
+
+            try {
+                importer.importNdjson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+
+            assertThat(entityManager.contains(loaded)).isFalse();
+        });
+    }
+
+    private List<JsonNode> importBody(String contentType, String body, boolean upsert) throws Exception {
+        MvcResult started = mockMvc.perform(post("/imports/products/import")
+                        .param("upsert", String.valueOf(upsert))
+                        .contentType(contentType)
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String report = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        return Arrays.stream(report.split("\n"))
+                .map(jsonMapper::readTree)
+                .toList();
+    }
+
+    private static List<Long> summary(List<JsonNode> report) {
+        JsonNode summary = report.getLast();
+        return List.of(summary.get("created").asLong(), summary.get("updated").asLong(),
+                summary.get("failed").asLong(), summary.get("complete").asBoolean() ? 1L : 0L);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Services {
+
+        @Bean
+        ImportService importService(ProductRepository repository) {
+            return new ImportService(repository);
+        }
+
+        @Bean
+        ImportMapper importMapper() {
+            return new ImportMapper();
+        }
+
+        @Bean
+        ImportController importController(ImportService importService, ImportMapper importMapper) {
+            return new ImportController(importService, importMapper);
+        }
+    }
+
+    @Data
+    static class ImportRequest {
+
+        @NotBlank
+        private String name;
+
+        private String category;
+
+        @PositiveOrZero
+        private Integer price;
+    }
+
+    static class ImportService extends CrudService<Product, Long> {
+
+        ImportService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Product";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.empty();
+        }
+
+        @Override
+        protected OperationCheck isCreatable(Product resource) {
+            return "banned".equals(resource.getCategory()) ? OperationCheck.denied() : OperationCheck.permitted();
+        }
+    }
+
+    static class ImportMapper implements ResourceMapper<Product, ImportRequest, ProductDto, Long> {
+
+        @Override
+        public ProductDto mapToDto(Product entity) {
+            var dto = new ProductDto();
+            dto.setId(entity.getId());
+            dto.setName(entity.getName());
+            return dto;
+        }
+
+        @Override
+        public Product mapToEntity(ImportRequest request) {
+            return new Product(request.getName(), request.getCategory(), request.getPrice());
+        }
+    }
+
+    @RestController
+    @RequestMapping("/imports/products")
+    static class ImportController extends CrudController<Product, ImportRequest, ProductDto, Long> {
+
+        ImportController(ImportService crudService, ImportMapper mapper) {
+            super(crudService, mapper);
+        }
+
+        @Override
+        protected int getImportBatchSize() {
+            return 2;
+        }
+    }
+}
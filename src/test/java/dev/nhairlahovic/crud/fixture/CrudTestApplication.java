@@ -0,0 +1,7 @@
+package dev.nhairlahovic.crud.fixture;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class CrudTestApplication {
+}
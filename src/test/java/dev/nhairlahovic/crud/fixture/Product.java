@@ -0,0 +1,32 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.model.BaseEntity;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Product implements BaseEntity<Long> {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    private String name;
+
+    private String category;
+
+    private Integer price;
+
+    public Product(String name, String category, Integer price) {
+        this.name = name;
+        this.category = category;
+        this.price = price;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.controller.CrudController;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/products")
+public class ProductController extends CrudController<Product, ProductRequest, ProductDto, Long> {
+
+    public ProductController(ProductService crudService, ProductMapper mapper) {
+        super(crudService, mapper);
+    }
+}
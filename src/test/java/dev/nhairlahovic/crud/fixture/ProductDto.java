@@ -0,0 +1,12 @@
+package dev.nhairlahovic.crud.fixture;
+
+import lombok.Data;
+
+@Data
+public class ProductDto {
+
+    private Long id;
+    private String name;
+    private String category;
+    private Integer price;
+}
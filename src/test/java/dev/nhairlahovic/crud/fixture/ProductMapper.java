@@ -0,0 +1,23 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.mapper.ResourceMapper;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper implements ResourceMapper<Product, ProductRequest, ProductDto, Long> {
+
+    @Override
+    public ProductDto mapToDto(Product entity) {
+        var dto = new ProductDto();
+        dto.setId(entity.getId());
+        dto.setName(entity.getName());
+        dto.setCategory(entity.getCategory());
+        dto.setPrice(entity.getPrice());
+        return dto;
+    }
+
+    @Override
+    public Product mapToEntity(ProductRequest request) {
+        return new Product(request.getName(), request.getCategory(), request.getPrice());
+    }
+}
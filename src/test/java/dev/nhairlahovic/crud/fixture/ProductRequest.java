@@ -0,0 +1,17 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.annotation.Patchable;
+import lombok.Data;
+
+@Data
+public class ProductRequest {
+
+    @Patchable
+    private String name;
+
+    @Patchable
+    private String category;
+
+    @Patchable
+    private Integer price;
+}
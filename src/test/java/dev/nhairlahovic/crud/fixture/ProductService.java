@@ -0,0 +1,26 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.service.CrudService;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+@Service
+public class ProductService extends CrudService<Product, Long> {
+
+    public ProductService(ProductRepository repository) {
+        super(repository);
+    }
+
+    @Override
+    public String getResourceType() {
+        return "Product";
+    }
+
+    @Override
+    public Optional<FilterCriteria> getFilterCriteria() {
+        return Optional.of(new FilterCriteria("name", FilterOperation.LIKE));
+    }
+}
@@ -0,0 +1,43 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.DeletionMarkable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Review implements BaseEntity<Long>, DeletionMarkable {
+
+    @Id
+    @GeneratedValue
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    private Product product;
+
+    private String text;
+
+    private Integer rating;
+
+    private boolean markedForDeletion;
+
+    public Review(Product product, String text, Integer rating) {
+        this.product = product;
+        this.text = text;
+        this.rating = rating;
+    }
+
+    @Override
+    public void markForDeletion() {
+        this.markedForDeletion = true;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.controller.NestedCrudController;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/products/{parentId}/reviews")
+public class ReviewController extends NestedCrudController<Product, Review, ReviewRequest, ReviewDto, Long, Long> {
+
+    public ReviewController(ReviewService nestedCrudService, ReviewMapper mapper) {
+        super(nestedCrudService, mapper);
+    }
+
+    @Override
+    protected int getMaxChildrenPerRequest() {
+        return 3;
+    }
+}
@@ -0,0 +1,11 @@
+package dev.nhairlahovic.crud.fixture;
+
+import lombok.Data;
+
+@Data
+public class ReviewDto {
+
+    private Long id;
+    private String text;
+    private Integer rating;
+}
@@ -0,0 +1,26 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.mapper.NestedResourceMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class ReviewMapper implements NestedResourceMapper<Review, ReviewRequest, ReviewDto, Long, Long> {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    public Review mapToEntity(Long parentId, ReviewRequest request) {
+        return new Review(productRepository.getReferenceById(parentId), request.getText(), request.getRating());
+    }
+
+    @Override
+    public ReviewDto mapToDto(Review entity) {
+        var dto = new ReviewDto();
+        dto.setId(entity.getId());
+        dto.setText(entity.getText());
+        dto.setRating(entity.getRating());
+        return dto;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.nhairlahovic.crud.fixture;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReviewRepository extends JpaRepository<Review, Long>, JpaSpecificationExecutor<Review> {
+
+    List<Review> findByProduct(Product product);
+
+    Optional<Review> findByIdAndProduct(Long id, Product product);
+}
@@ -0,0 +1,11 @@
+package dev.nhairlahovic.crud.fixture;
+
+import lombok.Data;
+
+@Data
+public class ReviewRequest {
+
+    private String text;
+
+    private Integer rating;
+}
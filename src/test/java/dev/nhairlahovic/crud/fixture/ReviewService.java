@@ -0,0 +1,68 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.service.DeletionPurger;
+import dev.nhairlahovic.crud.service.NestedCrudService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+public class ReviewService extends NestedCrudService<Product, Review, Long, Long> {
+
+    private volatile DeletionPurger<Review> deletionPurger;
+
+    public ReviewService(ReviewRepository repository, ProductRepository parentRepository) {
+        super(repository, parentRepository);
+    }
+
+    @Override
+    public String getResourceType() {
+        return "Review";
+    }
+
+    @Override
+    public String getParentResourceType() {
+        return "Product";
+    }
+
+    @Override
+    protected List<Review> findByParent(Product parent) {
+        return ((ReviewRepository) repository).findByProduct(parent);
+    }
+
+    @Override
+    protected Optional<Review> findByIdAndParent(Long id, Product parent) {
+        return ((ReviewRepository) repository).findByIdAndProduct(id, parent);
+    }
+
+    @Override
+    public Optional<FilterCriteria> getFilterCriteria() {
+        return Optional.of(new FilterCriteria("text", FilterOperation.LIKE));
+    }
+
+    @Override
+    public Set<String> getAllowedSortFields() {
+        return Set.of("rating");
+    }
+
+    @Override
+    protected String getParentAttribute() {
+        return "product";
+    }
+
+    @Override
+    protected Optional<DeletionPurger<Review>> getDeletionPurger() {
+        return Optional.ofNullable(deletionPurger);
+    }
+
+    /**
+     * Switches to deferred deletion with the given purger, or back to synchronous deletion with {@code null}.
+     */
+    public void setDeletionPurger(DeletionPurger<Review> deletionPurger) {
+        this.deletionPurger = deletionPurger;
+    }
+}
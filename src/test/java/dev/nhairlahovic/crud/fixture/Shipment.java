@@ -0,0 +1,39 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.model.BaseEntity;
+import dev.nhairlahovic.crud.model.DeletionMarkable;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+public class Shipment implements BaseEntity<Long>, DeletionMarkable {
+
+    @Id
+    private Long id;
+
+    private int region;
+
+    private String destination;
+
+    private int weight;
+
+    private boolean markedForDeletion;
+
+    public Shipment(Long id, int region, String destination, int weight) {
+        this.id = id;
+        this.region = region;
+        this.destination = destination;
+        this.weight = weight;
+    }
+
+    @Override
+    public void markForDeletion() {
+        this.markedForDeletion = true;
+    }
+}
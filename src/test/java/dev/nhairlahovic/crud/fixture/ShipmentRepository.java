@@ -0,0 +1,6 @@
+package dev.nhairlahovic.crud.fixture;
+
+import dev.nhairlahovic.crud.repository.JpaFilterRepository;
+
+public interface ShipmentRepository extends JpaFilterRepository<Shipment, Long> {
+}
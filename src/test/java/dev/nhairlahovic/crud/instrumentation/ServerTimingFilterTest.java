@@ -0,0 +1,61 @@
+package dev.nhairlahovic.crud.instrumentation;
+
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServerTimingFilterTest {
+
+    private final ServerTimingFilter filter = new ServerTimingFilter(Duration.ofMinutes(1));
+
+    @Test
+    void addsHeaderBeforeBodyIsWritten() throws Exception {
+        var response = new MockHttpServletResponse();
+        response.setBufferSize(1);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/products"), response, (req, res) -> {
+            RequestTiming.time("service", () -> null);
+            res.getOutputStream().write("[]".getBytes(StandardCharsets.UTF_8));
+            res.flushBuffer();
+        });
+
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).contains("service");
+        assertThat(response.getContentAsString()).isEqualTo("[]");
+    }
+
+    @Test
+    void addsHeaderToResponsesWithoutBody() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/products/1"), response, (req, res) -> {
+        });
+
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).isNotNull();
+    }
+
+    @Test
+    void skipsAsynchronousResponses() throws Exception {
+        var request = new MockHttpServletRequest("POST", "/products/import");
+        request.setAsyncSupported(true);
+        var response = new MockHttpServletResponse();
+
+        var streamed = new AtomicReference<ServletResponse>();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.startAsync();
+            streamed.set(res);
+        });
+        // The streamed body is written once the filter has returned
+        streamed.get().getOutputStream().write("{}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(response.getHeader(ServerTimingFilter.SERVER_TIMING_HEADER)).isNull();
+    }
+}
@@ -0,0 +1,65 @@
+package dev.nhairlahovic.crud.mapper;
+
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductDto;
+import dev.nhairlahovic.crud.fixture.ProductMapper;
+import dev.nhairlahovic.crud.fixture.ProductRequest;
+import dev.nhairlahovic.crud.model.PatchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceMapperTest {
+
+    private static final Map<String, String> PATCHABLE_FIELDS = Map.of("name", "name", "category", "category", "price", "price");
+
+    private final NormalizingMapper mapper = new NormalizingMapper();
+
+    @Test
+    void patchesPresentFieldsWithConvertedValues() {
+        Product product = new Product("Apple", "fruit", 12);
+        var request = new ProductRequest();
+        request.setName("  Pear ");
+        request.setCategory("ignored");
+
+        mapper.patchEntity(product, PatchRequest.of(request, Set.of("name", "price")), PATCHABLE_FIELDS);
+
+        assertThat(product.getName()).isEqualTo("Pear");
+        assertThat(product.getCategory()).isEqualTo("fruit");
+        assertThat(product.getPrice()).isNull();
+        assertThat(mapper.conversions).isEqualTo(1);
+    }
+
+    @Test
+    void clearingFieldsDoesNotConvert() {
+        Product product = new Product("Apple", "fruit", 12);
+
+        mapper.patchEntity(product, PatchRequest.of(new ProductRequest(), Set.of("category")), PATCHABLE_FIELDS);
+
+        assertThat(product.getCategory()).isNull();
+        assertThat(product.getName()).isEqualTo("Apple");
+        assertThat(mapper.conversions).isZero();
+    }
+
+    private static class NormalizingMapper implements ResourceMapper<Product, ProductRequest, ProductDto, Long> {
+
+        private final ProductMapper delegate = new ProductMapper();
+        private int conversions;
+
+        @Override
+        public ProductDto mapToDto(Product entity) {
+            return delegate.mapToDto(entity);
+        }
+
+        @Override
+        public Product mapToEntity(ProductRequest request) {
+            conversions++;
+            Product product = delegate.mapToEntity(request);
+            product.setName(request.getName() == null ? null : request.getName().strip());
+            return product;
+        }
+    }
+}
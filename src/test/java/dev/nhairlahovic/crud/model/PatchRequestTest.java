@@ -0,0 +1,159 @@
+package dev.nhairlahovic.crud.model;
+
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.DatabindException;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that PATCH bodies record exactly the fields present in the top-level object, read as JSON by the
+ * application's mapper and as Smile.
+ */
+@SpringBootTest(classes = CrudTestApplication.class)
+class PatchRequestTest {
+
+    private static final TypeReference<PatchRequest<Request>> PATCH = new TypeReference<>() {
+    };
+    private static final String SMILE = "application/x-jackson-smile";
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final SmileMapper smileMapper = SmileMapper.builder().build();
+
+    @Test
+    void absentFieldsAreNotPresent() {
+        for (ObjectMapper mapper : mappers()) {
+            PatchRequest<Request> patch = read(mapper, "{\"name\":\"Pear\"}");
+
+            assertThat(patch.getRequest().getName()).isEqualTo("Pear");
+            assertThat(patch.getPresentFields()).containsExactly("name");
+            assertThat(patch.isPresent("price")).isFalse();
+        }
+    }
+
+    @Test
+    void explicitNullIsPresent() {
+        for (ObjectMapper mapper : mappers()) {
+            PatchRequest<Request> patch = read(mapper, "{\"name\":null,\"price\":3}");
+
+            assertThat(patch.getRequest().getName()).isNull();
+            assertThat(patch.getRequest().getPrice()).isEqualTo(3);
+            assertThat(patch.getPresentFields()).containsExactlyInAnyOrder("name", "price");
+        }
+    }
+
+    @Test
+    void fieldsOfNestedObjectsAndArraysAreNotPresent() {
+        for (ObjectMapper mapper : mappers()) {
+            PatchRequest<Request> patch = read(mapper, """
+                    {"size":{"width":2,"height":3,"name":"box"},
+                     "tags":[{"name":"ripe"},{"name":"sweet","price":1}],
+                     "price":4}""");
+
+            assertThat(patch.getRequest().getSize().getWidth()).isEqualTo(2);
+            assertThat(patch.getRequest().getTags()).extracting(Tag::getName).containsExactly("ripe", "sweet");
+            assertThat(patch.getPresentFields()).containsExactlyInAnyOrder("size", "tags", "price");
+        }
+    }
+
+    @Test
+    void unknownFieldsAreIgnored() {
+        for (ObjectMapper mapper : mappers()) {
+            PatchRequest<Request> patch = read(mapper, "{\"color\":{\"name\":\"green\"},\"name\":\"Pear\"}");
+
+            assertThat(patch.getRequest().getName()).isEqualTo("Pear");
+            assertThat(patch.isPresent("name")).isTrue();
+            assertThat(patch.isPresent("price")).isFalse();
+        }
+    }
+
+    @Test
+    void nonObjectBodyIsRejected() {
+        for (ObjectMapper mapper : mappers()) {
+            assertThatThrownBy(() -> read(mapper, "[{\"name\":\"Pear\"}]")).isInstanceOf(DatabindException.class);
+            assertThatThrownBy(() -> read(mapper, "\"Pear\"")).isInstanceOf(DatabindException.class);
+        }
+    }
+
+    @Test
+    void smileBodyPatchesOnlyPresentFields() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        Product product = productRepository.save(new Product("Quince", "fruit", 9));
+
+        mockMvc.perform(patch("/products/{id}", product.getId())
+                        .contentType(SMILE)
+                        .accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(Map.of("name", "Golden quince"))))
+                .andExpect(status().isOk());
+
+        assertThat(productRepository.findById(product.getId())).get()
+                .satisfies(stored -> {
+                    assertThat(stored.getName()).isEqualTo("Golden quince");
+                    assertThat(stored.getCategory()).isEqualTo("fruit");
+                    assertThat(stored.getPrice()).isEqualTo(9);
+                });
+    }
+
+    private List<ObjectMapper> mappers() {
+        return List.of(jsonMapper, smileMapper);
+    }
+
+    private PatchRequest<Request> read(ObjectMapper mapper, String json) {
+        if (mapper == jsonMapper) {
+            return jsonMapper.readValue(json, PATCH);
+        }
+        return mapper.readValue(mapper.writeValueAsBytes(jsonMapper.readTree(json)), PATCH);
+    }
+
+    @Data
+    static class Request {
+
+        private String name;
+
+        private Integer price;
+
+        private Size size;
+
+        private List<Tag> tags;
+    }
+
+    @Data
+    static class Size {
+
+        private Integer width;
+
+        private Integer height;
+    }
+
+    @Data
+    static class Tag {
+
+        private String name;
+    }
+}
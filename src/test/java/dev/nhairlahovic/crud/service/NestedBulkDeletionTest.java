@@ -0,0 +1,249 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.exception.ConflictingResourceOperationException;
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.ReviewRepository;
+import dev.nhairlahovic.crud.fixture.ReviewService;
+import dev.nhairlahovic.crud.model.OperationCheck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that all children of a parent are deleted and replaced with set-based statements, that per-entity delete
+ * hooks only run for services opting in, and that the collection endpoints answer like single deletes.
+ */
+@SpringBootTest(classes = {CrudTestApplication.class, NestedBulkDeletionTest.Services.class})
+class NestedBulkDeletionTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private HookedReviewService hookedReviewService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MockMvc mockMvc;
+    private DeletionPurger<Review> purger;
+    private Product product;
+    private Product other;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        product = productRepository.save(new Product("Cherry", "fruit", 10));
+        reviewRepository.save(new Review(product, "Sweet", 4));
+        reviewRepository.save(new Review(product, "Small", 2));
+        reviewRepository.save(new Review(product, "Dark", 5));
+        other = productRepository.save(new Product("Kiwi", "fruit", 7));
+        reviewRepository.save(new Review(other, "Hairy", 3));
+        hookedReviewService.getBeforeDelete().clear();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reviewService.setDeletionPurger(null);
+        if (purger != null) {
+            purger.close();
+        }
+    }
+
+    @Test
+    void deleteAllByParentDeletesOnlyTheChildrenOfTheParent() {
+        assertThat(reviewService.deleteAllByParent(product.getId())).isEqualTo(3);
+
+        assertThat(reviewRepository.findByProduct(product)).isEmpty();
+        assertThat(reviewRepository.findByProduct(other)).extracting(Review::getText).containsExactly("Hairy");
+    }
+
+    @Test
+    void deferredDeleteAllByParentMarksTheChildren() {
+        deferDeletion();
+
+        assertThat(reviewService.deleteAllByParent(product.getId())).isEqualTo(3);
+        assertThat(reviewService.deleteAllByParent(product.getId())).isZero();
+
+        assertThat(reviewRepository.findByProduct(product))
+                .hasSize(3)
+                .allMatch(Review::isMarkedForDeletion);
+        assertThat(reviewRepository.findByProduct(other)).noneMatch(Review::isMarkedForDeletion);
+        assertThat(reviewService.getAllByParent(product.getId())).isEmpty();
+    }
+
+    @Test
+    void replaceAllByParentReplacesTheChildren() {
+        List<Review> saved = reviewService.replaceAllByParent(product.getId(), List.of(
+                new Review(product, "Ripe", 5),
+                new Review(product, "Fresh", 4)));
+
+        assertThat(saved).allMatch(review -> review.getId() != null);
+        assertThat(reviewRepository.findByProduct(product))
+                .extracting(Review::getText)
+                .containsExactlyInAnyOrder("Ripe", "Fresh");
+        assertThat(reviewRepository.findByProduct(other)).hasSize(1);
+    }
+
+    @Test
+    void perEntityHooksRunForServicesOptingIn() {
+        assertThat(hookedReviewService.deleteAllByParent(other.getId())).isEqualTo(1);
+
+        assertThat(hookedReviewService.getBeforeDelete()).containsExactly("Hairy");
+    }
+
+    @Test
+    void childThatMustNotBeDeletedRejectsTheBulkDelete() {
+        assertThatThrownBy(() -> hookedReviewService.deleteAllByParent(product.getId()))
+                .isInstanceOf(ConflictingResourceOperationException.class);
+        assertThatThrownBy(() -> hookedReviewService.replaceAllByParent(product.getId(),
+                List.of(new Review(product, "Ripe", 5))))
+                .isInstanceOf(ConflictingResourceOperationException.class);
+
+        assertThat(hookedReviewService.getBeforeDelete()).isEmpty();
+        assertThat(reviewRepository.findByProduct(product)).hasSize(3);
+    }
+
+    @Test
+    void deleteCollectionAnswersNoContent() throws Exception {
+        mockMvc.perform(delete("/products/{parentId}/reviews", product.getId()))
+                .andExpect(status().isNoContent());
+
+        assertThat(reviewRepository.findByProduct(product)).isEmpty();
+    }
+
+    @Test
+    void deferredDeleteCollectionAnswersAccepted() throws Exception {
+        deferDeletion();
+
+        mockMvc.perform(delete("/products/{parentId}/reviews", product.getId()))
+                .andExpect(status().isAccepted());
+
+        assertThat(reviewRepository.findByProduct(product)).allMatch(Review::isMarkedForDeletion);
+    }
+
+    @Test
+    void putCollectionReplacesTheChildren() throws Exception {
+        mockMvc.perform(put("/products/{parentId}/reviews", product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"text\":\"Ripe\",\"rating\":5},{\"text\":\"Fresh\",\"rating\":4}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].text", contains("Ripe", "Fresh")));
+
+        assertThat(reviewRepository.findByProduct(product))
+                .extracting(Review::getText)
+                .containsExactlyInAnyOrder("Ripe", "Fresh");
+    }
+
+    @Test
+    void putCollectionRejectsTooManyChildren() throws Exception {
+        mockMvc.perform(put("/products/{parentId}/reviews", product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"text\":\"A\"},{\"text\":\"B\"},{\"text\":\"C\"},{\"text\":\"D\"}]"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(reviewRepository.findByProduct(product)).hasSize(3);
+    }
+
+    private void deferDeletion() {
+        // Never runs on its own, so the reviews stay marked
+        purger = new DeletionPurger<>(reviewService, transactionManager, 100, Duration.ofHours(1), Duration.ofHours(1), 1);
+        reviewService.setDeletionPurger(purger);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Services {
+
+        @Bean
+        HookedReviewService hookedReviewService(ReviewRepository repository, ProductRepository parentRepository) {
+            return new HookedReviewService(repository, parentRepository);
+        }
+    }
+
+    static class HookedReviewService extends NestedCrudService<Product, Review, Long, Long> {
+
+        private final List<String> beforeDelete = new ArrayList<>();
+
+        HookedReviewService(ReviewRepository repository, ProductRepository parentRepository) {
+            super(repository, parentRepository);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Review";
+        }
+
+        @Override
+        public String getParentResourceType() {
+            return "Product";
+        }
+
+        @Override
+        protected List<Review> findByParent(Product parent) {
+            return ((ReviewRepository) repository).findByProduct(parent);
+        }
+
+        @Override
+        protected Optional<Review> findByIdAndParent(Long id, Product parent) {
+            return ((ReviewRepository) repository).findByIdAndProduct(id, parent);
+        }
+
+        @Override
+        protected String getParentAttribute() {
+            return "product";
+        }
+
+        public List<String> getBeforeDelete() {
+            return beforeDelete;
+        }
+
+        @Override
+        protected boolean hasPerEntityDeleteHooks() {
+            return true;
+        }
+
+        @Override
+        protected OperationCheck isDeletable(Review entity) {
+            return entity.getRating() < 3 ? OperationCheck.denied() : OperationCheck.permitted();
+        }
+
+        @Override
+        protected void beforeDelete(Review entity) {
+            beforeDelete.add(entity.getText());
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Checks that pages whose total is counted in parallel with the content are consistent with that content.
+ */
+@SpringBootTest(classes = {CrudTestApplication.class, ParallelCountTest.Services.class})
+class ParallelCountTest {
+
+    private static final List<String> SEARCH_VALUES = Arrays.asList(null, "", "item", "item 1", "none");
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private SequentialService sequentialService;
+
+    @Autowired
+    private ParallelService parallelService;
+
+    @BeforeEach
+    void seed() {
+        repository.deleteAll();
+        repository.saveAll(IntStream.range(0, 23)
+                .mapToObj(i -> new Product("item " + i, i % 2 == 0 ? "even" : "odd", i))
+                .toList());
+    }
+
+    @AfterEach
+    void clear() {
+        parallelService.executor = ParallelService.DEFAULT_EXECUTOR;
+    }
+
+    @Test
+    void pagesMatchSequentialCount() {
+        for (String search : SEARCH_VALUES) {
+            for (int size : new int[]{1, 5, 10, 23, 50}) {
+                for (int page = 0; page <= 24 / size + 1; page++) {
+                    Pageable pageable = PageRequest.of(page, size, Sort.by("id"));
+                    Page<Product> expected = sequentialService.getByPage(pageable, search);
+                    Page<Product> actual = parallelService.getByPage(pageable, search);
+
+                    assertThat(ids(actual.getContent()))
+                            .as("search %s, size %d, page %d", search, size, page)
+                            .containsExactlyElementsOf(ids(expected.getContent()));
+                    assertThat(actual.getTotalElements())
+                            .as("search %s, size %d, page %d", search, size, page)
+                            .isEqualTo(expected.getTotalElements());
+                    assertThat(actual.getTotalPages()).isEqualTo(expected.getTotalPages());
+                }
+            }
+        }
+    }
+
+    @Test
+    void lastPageDoesNotWaitForCount() {
+        // Never runs the count, so any page that waits for it would hang
+        parallelService.executor = task -> {
+        };
+
+        Page<Product> page = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> parallelService.getByPage(PageRequest.of(2, 10, Sort.by("id")), null));
+
+        assertThat(page.getContent()).hasSize(3);
+        assertThat(page.getTotalElements()).isEqualTo(23);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+    }
+
+    @Test
+    void totalCoversContentUnderConcurrentWrites() throws Exception {
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            int i = 0;
+            while (writing.get()) {
+                Product product = repository.save(new Product("item new " + i++, "new", i));
+                repository.deleteById(product.getId());
+            }
+        });
+
+        try {
+            for (int round = 0; round < 50; round++) {
+                for (int page = 0; page < 4; page++) {
+                    Pageable pageable = PageRequest.of(page, 7, Sort.by("id"));
+                    Page<Product> result = parallelService.getByPage(pageable, "item");
+                    long returned = pageable.getOffset() + result.getNumberOfElements();
+
+                    assertThat(result.getTotalElements()).isGreaterThanOrEqualTo(returned);
+                    if (result.getNumberOfElements() > 0 && result.getNumberOfElements() < pageable.getPageSize()) {
+                        assertThat(result.getTotalElements()).isEqualTo(returned);
+                    }
+                    assertThat(result.getTotalPages()).isGreaterThanOrEqualTo(result.getNumber() + (result.hasContent() ? 1 : 0));
+                }
+            }
+        } finally {
+            writing.set(false);
+            writer.get();
+        }
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Services {
+
+        @Bean
+        SequentialService sequentialService(ProductRepository repository) {
+            return new SequentialService(repository);
+        }
+
+        @Bean
+        ParallelService parallelService(ProductRepository repository) {
+            return new ParallelService(repository);
+        }
+    }
+
+    static class SequentialService extends CrudService<Product, Long> {
+
+        SequentialService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Product";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.of(new FilterCriteria("name", FilterOperation.LIKE));
+        }
+    }
+
+    static class ParallelService extends SequentialService {
+
+        static final ExecutorService DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+        volatile Executor executor = DEFAULT_EXECUTOR;
+
+        ParallelService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        protected Optional<Executor> getParallelQueryExecutor() {
+            return Optional.of(executor);
+        }
+    }
+}
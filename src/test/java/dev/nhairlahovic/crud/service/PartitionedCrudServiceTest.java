@@ -0,0 +1,235 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.fixture.Shipment;
+import dev.nhairlahovic.crud.fixture.ShipmentRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs a {@link PartitionedCrudService} over three embedded databases, checking that every entity is stored in its
+ * partition and that reads fanned out to all partitions are merged and paged like a single database would.
+ */
+class PartitionedCrudServiceTest {
+
+    private static final int SHARDS = 3;
+    private static final List<String> DESTINATIONS = List.of("berlin", "amsterdam", "zagreb", "lisbon", "oslo");
+
+    private final List<LocalContainerEntityManagerFactoryBean> factories = new ArrayList<>();
+    private List<PartitionedCrudService.Shard<Shipment, Long>> shards;
+    private DeletionPurger<Shipment> purger;
+    private ShipmentService service;
+    private List<Shipment> created;
+
+    @BeforeEach
+    void setUp() {
+        shards = IntStream.range(0, SHARDS).mapToObj(this::shard).toList();
+        service = new ShipmentService(shards);
+        service.bindEntityManagerFactory(factories.getFirst().getObject());
+        // Never runs on its own, the test purges explicitly
+        purger = new DeletionPurger<>(service, shards.getFirst().transactionManager(), 100,
+                Duration.ofHours(1), Duration.ofHours(1), 1);
+        service.purger = purger;
+
+        created = new ArrayList<>();
+        for (int i = 1; i <= 10; i++) {
+            for (int region = 0; region < SHARDS; region++) {
+                long id = i * SHARDS + region;
+                created.add(service.create(new Shipment(id, region,
+                        DESTINATIONS.get((int) (id % DESTINATIONS.size())), (int) (id * 7 % 10))));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        purger.close();
+        factories.forEach(LocalContainerEntityManagerFactoryBean::destroy);
+    }
+
+    @Test
+    void storesEveryEntityInItsPartition() {
+        for (int index = 0; index < SHARDS; index++) {
+            int region = index;
+            assertThat(shards.get(index).repository().findAll())
+                    .extracting(Shipment::getId)
+                    .containsExactlyInAnyOrderElementsOf(created.stream()
+                            .filter(shipment -> shipment.getRegion() == region)
+                            .map(Shipment::getId)
+                            .toList());
+        }
+
+        for (Shipment shipment : created) {
+            assertThat(service.getById(shipment.getId()).getDestination()).isEqualTo(shipment.getDestination());
+        }
+    }
+
+    @Test
+    void mergesAndPagesAcrossPartitions() {
+        Map<Sort, Comparator<Shipment>> sorts = Map.of(
+                Sort.by("id"), Comparator.comparing(Shipment::getId),
+                Sort.by(Sort.Direction.DESC, "id"), Comparator.comparing(Shipment::getId).reversed(),
+                Sort.by("weight"), Comparator.comparing(Shipment::getWeight).thenComparing(Shipment::getId),
+                Sort.by(Sort.Direction.DESC, "destination").and(Sort.by(Sort.Direction.DESC, "weight")),
+                Comparator.comparing(Shipment::getDestination).reversed()
+                        .thenComparing(Comparator.comparing(Shipment::getWeight).reversed())
+                        .thenComparing(Shipment::getId));
+
+        for (String search : new String[]{null, "o", "lisbon"}) {
+            List<Shipment> matching = created.stream()
+                    .filter(shipment -> search == null || shipment.getDestination().contains(search))
+                    .toList();
+
+            sorts.forEach((sort, comparator) -> {
+                List<Long> expected = matching.stream().sorted(comparator).map(Shipment::getId).toList();
+                for (int size : new int[]{4, 7, 30}) {
+                    for (int page = 0; page * size <= expected.size(); page++) {
+                        Page<Shipment> actual = service.getByPage(PageRequest.of(page, size, sort), search);
+
+                        assertThat(actual.getContent())
+                                .as("search %s, sort %s, size %d, page %d", search, sort, size, page)
+                                .extracting(Shipment::getId)
+                                .containsExactlyElementsOf(expected.subList(
+                                        Math.min(page * size, expected.size()),
+                                        Math.min((page + 1) * size, expected.size())));
+                        assertThat(actual.getTotalElements()).isEqualTo(expected.size());
+                    }
+                }
+            });
+
+            assertThat(service.getAll(search)).extracting(Shipment::getId)
+                    .containsExactlyInAnyOrderElementsOf(matching.stream().map(Shipment::getId).toList());
+        }
+    }
+
+    @Test
+    void readsIdsFromTheirPartitions() {
+        List<Long> ids = List.of(3L, 4L, 5L, 17L, 31L, 999L);
+
+        assertThat(service.getByIdIn(ids)).extracting(Shipment::getId)
+                .containsExactlyInAnyOrder(3L, 4L, 5L, 17L, 31L);
+    }
+
+    @Test
+    void updatesInThePartitionOfTheEntity() {
+        Shipment shipment = service.getByIdForUpdate(17L);
+        shipment.setDestination("vienna");
+        service.update(17L, shipment);
+
+        assertThat(shards.get(2).repository().findById(17L)).get()
+                .extracting(Shipment::getDestination).isEqualTo("vienna");
+        assertThat(shards.get(0).repository().findById(17L)).isEmpty();
+        assertThat(shards.get(1).repository().findById(17L)).isEmpty();
+    }
+
+    @Test
+    void purgesMarkedEntitiesFromEveryPartition() {
+        List<Long> deleted = List.of(4L, 8L, 12L, 15L, 32L);
+        deleted.forEach(service::delete);
+
+        assertThat(service.getAll()).extracting(Shipment::getId).doesNotContainAnyElementsOf(deleted);
+        assertThat(service.getByIdIn(deleted)).isEmpty();
+
+        List<Long> marked = new ArrayList<>();
+        Shipment last = null;
+        List<Shipment> chunk;
+        do {
+            chunk = service.findMarkedForDeletion(last, 2);
+            chunk.forEach(shipment -> marked.add(shipment.getId()));
+            chunk.forEach(service::purge);
+            last = chunk.isEmpty() ? last : chunk.getLast();
+        } while (chunk.size() == 2);
+
+        assertThat(marked).containsExactlyElementsOf(deleted);
+        for (Long id : deleted) {
+            assertThat(shards.get((int) (id % SHARDS)).repository().findById(id)).isEmpty();
+        }
+        assertThat(shards.stream().mapToLong(shard -> shard.repository().count()).sum())
+                .isEqualTo(created.size() - deleted.size());
+    }
+
+    private PartitionedCrudService.Shard<Shipment, Long> shard(int index) {
+        var factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build());
+        factory.setPackagesToScan(Shipment.class.getPackageName());
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of("hibernate.hbm2ddl.auto", "create-drop"));
+        factory.setPersistenceUnitName("shard-" + index);
+        factory.afterPropertiesSet();
+        factories.add(factory);
+
+        EntityManagerFactory entityManagerFactory = factory.getObject();
+        var transactionManager = new JpaTransactionManager(entityManagerFactory);
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("transactionManager", transactionManager);
+
+        var repository = new JpaRepositoryFactoryBean<>(ShipmentRepository.class);
+        repository.setEntityManager(SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory));
+        repository.setBeanFactory(beanFactory);
+        repository.setBeanClassLoader(getClass().getClassLoader());
+        repository.afterPropertiesSet();
+
+        return new PartitionedCrudService.Shard<>(repository.getObject(), transactionManager);
+    }
+
+    static class ShipmentService extends PartitionedCrudService<Shipment, Long> {
+
+        private DeletionPurger<Shipment> purger;
+
+        ShipmentService(List<Shard<Shipment, Long>> shards) {
+            super(shards, new Partitioner<>() {
+                @Override
+                public int partitionOfId(Long id) {
+                    return (int) (id % SHARDS);
+                }
+
+                @Override
+                public int partitionOfEntity(Shipment entity) {
+                    return entity.getRegion();
+                }
+            });
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Shipment";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.of(new FilterCriteria("destination", FilterOperation.LIKE));
+        }
+
+        @Override
+        protected Optional<DeletionPurger<Shipment>> getDeletionPurger() {
+            return Optional.ofNullable(purger);
+        }
+    }
+}
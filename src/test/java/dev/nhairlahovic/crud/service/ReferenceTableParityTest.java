@@ -0,0 +1,199 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.filter.FilterCriteria;
+import dev.nhairlahovic.crud.filter.FilterOperation;
+import dev.nhairlahovic.crud.filter.FilterableFields;
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a reference table served from its in-memory snapshot answers every read exactly like the database.
+ */
+@SpringBootTest(classes = {CrudTestApplication.class, ReferenceTableParityTest.Services.class})
+class ReferenceTableParityTest {
+
+    private static final List<String> SEARCH_VALUES = Arrays.asList(
+            null, "", "a", "APP", "an", "pie", "%", "_", "100%", "r_s", "zz", "Ä", "12", "fruit");
+
+    private static final List<Sort> SORTS = List.of(
+            Sort.by("id"),
+            Sort.by("name").and(Sort.by("id")),
+            Sort.by(Sort.Direction.DESC, "name").and(Sort.by("id")),
+            Sort.by(Sort.Order.asc("name").ignoreCase()).and(Sort.by("id")),
+            Sort.by("price").and(Sort.by(Sort.Direction.DESC, "id")),
+            Sort.by(Sort.Direction.DESC, "price").and(Sort.by("id")),
+            Sort.by("category").and(Sort.by(Sort.Direction.DESC, "name")).and(Sort.by("id")),
+            Sort.by(Sort.Order.asc("price").nullsLast()).and(Sort.by("id")));
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private DatabaseService databaseService;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    private DatabaseOrService databaseOrService;
+
+    @Autowired
+    private SnapshotOrService snapshotOrService;
+
+    @BeforeEach
+    void seed() {
+        if (repository.count() > 0) {
+            return;
+        }
+        repository.saveAll(List.of(
+                new Product("Apple", "fruit", 12),
+                new Product("apple pie", "pastry", 7),
+                new Product("Banana", "fruit", 12),
+                new Product("banana split", "dessert", null),
+                new Product("Cherry", null, 3),
+                new Product("100% Juice", "drink", 5),
+                new Product("under_score", "misc", 120),
+                new Product("Zucchini", "vegetable", 2),
+                new Product("Äpfel", "fruit", 9),
+                new Product(null, "misc", 1),
+                new Product("cranberries", "fruit", null),
+                new Product("Grapefruit", "fruit", 12)));
+    }
+
+    @Test
+    void getAllMatchesDatabase() {
+        for (String search : SEARCH_VALUES) {
+            assertThat(ids(snapshotService.getAll(search)))
+                    .as("search %s", search)
+                    .containsExactlyInAnyOrderElementsOf(ids(databaseService.getAll(search)));
+            assertThat(ids(snapshotOrService.getAll(search)))
+                    .as("OR search %s", search)
+                    .containsExactlyInAnyOrderElementsOf(ids(databaseOrService.getAll(search)));
+        }
+    }
+
+    @Test
+    void getByPageMatchesDatabase() {
+        for (String search : SEARCH_VALUES) {
+            for (Sort sort : SORTS) {
+                for (int page = 0; page < 5; page++) {
+                    var pageable = PageRequest.of(page, 3, sort);
+                    Page<Product> expected = databaseService.getByPage(pageable, search);
+                    Page<Product> actual = snapshotService.getByPage(pageable, search);
+
+                    assertThat(ids(actual.getContent()))
+                            .as("search %s, sort %s, page %d", search, sort, page)
+                            .containsExactlyElementsOf(ids(expected.getContent()));
+                    assertThat(actual.getTotalElements()).isEqualTo(expected.getTotalElements());
+                }
+            }
+        }
+    }
+
+    @Test
+    void getByIdInMatchesDatabase() {
+        List<Long> ids = ids(databaseService.getAll());
+        List<Long> requested = List.of(ids.get(0), ids.get(3), ids.get(7), -1L);
+
+        assertThat(ids(snapshotService.getByIdIn(requested)))
+                .containsExactlyInAnyOrderElementsOf(ids(databaseService.getByIdIn(requested)));
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Services {
+
+        @Bean
+        DatabaseService databaseService(ProductRepository repository) {
+            return new DatabaseService(repository);
+        }
+
+        @Bean
+        SnapshotService snapshotService(ProductRepository repository) {
+            return new SnapshotService(repository);
+        }
+
+        @Bean
+        DatabaseOrService databaseOrService(ProductRepository repository) {
+            return new DatabaseOrService(repository);
+        }
+
+        @Bean
+        SnapshotOrService snapshotOrService(ProductRepository repository) {
+            return new SnapshotOrService(repository);
+        }
+    }
+
+    static class DatabaseService extends CrudService<Product, Long> {
+
+        DatabaseService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Product";
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.of(new FilterCriteria("name", FilterOperation.LIKE));
+        }
+    }
+
+    static class SnapshotService extends DatabaseService {
+
+        SnapshotService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        protected boolean isReferenceTable() {
+            return true;
+        }
+    }
+
+    static class DatabaseOrService extends DatabaseService {
+
+        DatabaseOrService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        public Optional<FilterCriteria> getFilterCriteria() {
+            return Optional.of(new FilterCriteria(FilterableFields.of(List.of("name", "category"),
+                    FilterableFields.FilterMatchingStrategy.OR), FilterOperation.LIKE));
+        }
+    }
+
+    static class SnapshotOrService extends DatabaseOrService {
+
+        SnapshotOrService(ProductRepository repository) {
+            super(repository);
+        }
+
+        @Override
+        protected boolean isReferenceTable() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.exception.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that concurrent callers share one call to the loader, also when the loader is slower than the callers
+ * may wait.
+ */
+class SingleFlightTest {
+
+    private static final int WAITERS = 16;
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task);
+        threads.add(thread);
+        return thread;
+    });
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void waitersShareTheResultOfOneLoad() throws Exception {
+        var singleFlight = new SingleFlight(Duration.ofSeconds(30));
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("Product", "key", slowLoader()));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Future<String>> waiters = submitWaiters(singleFlight);
+        awaitWaiting();
+
+        release.countDown();
+
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("loaded");
+        for (Future<String> waiter : waiters) {
+            assertThat(waiter.get(10, TimeUnit.SECONDS)).isEqualTo("loaded");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void waitersOfASlowLoadAreShedWithoutLoading() throws Exception {
+        var singleFlight = new SingleFlight(Duration.ofMillis(50));
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("Product", "key", slowLoader()));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        List<Future<String>> waiters = submitWaiters(singleFlight);
+
+        for (Future<String> waiter : waiters) {
+            try {
+                waiter.get(10, TimeUnit.SECONDS);
+                throw new AssertionError("Waiter was not shed");
+            } catch (ExecutionException ex) {
+                assertThat(ex.getCause()).isInstanceOf(ConcurrencyLimitExceededException.class);
+            }
+        }
+        assertThat(loads).hasValue(1);
+
+        release.countDown();
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo("loaded");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void callsForDifferentKeysLoadSeparately() throws Exception {
+        var singleFlight = new SingleFlight(Duration.ofSeconds(30));
+
+        Future<String> first = executor.submit(() -> singleFlight.execute("Product", "first", slowLoader()));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(singleFlight.execute("Product", "second", () -> "other")).isEqualTo("other");
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("loaded");
+    }
+
+    private List<Future<String>> submitWaiters(SingleFlight singleFlight) {
+        List<Future<String>> waiters = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            waiters.add(executor.submit(() -> singleFlight.execute("Product", "key", slowLoader())));
+        }
+        return waiters;
+    }
+
+    /**
+     * Waits until every waiter is blocked on the shared call, the only timed wait in these tests.
+     */
+    private void awaitWaiting() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (threads.stream().filter(thread -> thread.getState() == Thread.State.TIMED_WAITING).count() < WAITERS) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private Supplier<String> slowLoader() {
+        return () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return "loaded";
+        };
+    }
+}
@@ -0,0 +1,188 @@
+package dev.nhairlahovic.crud.service;
+
+import dev.nhairlahovic.crud.fixture.CrudTestApplication;
+import dev.nhairlahovic.crud.fixture.Product;
+import dev.nhairlahovic.crud.fixture.ProductController;
+import dev.nhairlahovic.crud.fixture.ProductDto;
+import dev.nhairlahovic.crud.fixture.ProductRepository;
+import dev.nhairlahovic.crud.fixture.ProductRequest;
+import dev.nhairlahovic.crud.fixture.Review;
+import dev.nhairlahovic.crud.fixture.ReviewRepository;
+import dev.nhairlahovic.crud.model.PatchRequest;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that updates applied in place to the managed entity, as a PATCH does when the persistence context spans
+ * the request, are detected as changes.
+ */
+@SpringBootTest(classes = {CrudTestApplication.class, UpdateChangeDetectionTest.Services.class})
+class UpdateChangeDetectionTest {
+
+    @Autowired
+    private ProductController productController;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransactionTemplate openInView;
+    private Product product;
+    private Review review;
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+        // Like open-in-view, one persistence context spans loading, patching and saving the entity
+        openInView = new TransactionTemplate(transactionManager);
+        product = productRepository.save(new Product("Apple", "fruit", 12));
+        review = reviewRepository.save(new Review(product, "Tasty", 4));
+        reviewService.getUpdated().clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
+        meterRegistry.close();
+    }
+
+    @Test
+    void patchThatChangesFieldIsSaved() {
+        var request = new ProductRequest();
+        request.setName("Green apple");
+
+        ProductDto patched = openInView.execute(status ->
+                productController.patchResource(product.getId(), PatchRequest.of(request, Set.of("name"))));
+
+        assertThat(patched.getName()).isEqualTo("Green apple");
+        assertThat(productRepository.findById(product.getId())).get()
+                .extracting(Product::getName).isEqualTo("Green apple");
+        assertThat(noopCount("Product")).isZero();
+    }
+
+    @Test
+    void patchWithStoredValuesIsNoop() {
+        var request = new ProductRequest();
+        request.setName("Apple");
+        request.setPrice(12);
+
+        openInView.executeWithoutResult(status ->
+                productController.patchResource(product.getId(), PatchRequest.of(request, Set.of("name", "price"))));
+
+        assertThat(noopCount("Product")).isEqualTo(1);
+    }
+
+    @Test
+    void updateInPlaceRunsHooks() {
+        openInView.executeWithoutResult(status -> {
+            Review existing = reviewService.getByIdForUpdate(product.getId(), review.getId());
+            existing.setRating(5);
+            reviewService.update(review.getId(), existing);
+        });
+
+        assertThat(reviewService.getUpdated()).containsExactly(5);
+        assertThat(reviewRepository.findById(review.getId())).get()
+                .extracting(Review::getRating).isEqualTo(5);
+        assertThat(noopCount("Review")).isZero();
+    }
+
+    @Test
+    void unchangedUpdateInPlaceSkipsHooks() {
+        openInView.executeWithoutResult(status -> {
+            Review existing = reviewService.getByIdForUpdate(product.getId(), review.getId());
+            existing.setText("Tasty");
+            reviewService.update(review.getId(), existing);
+        });
+
+        assertThat(reviewService.getUpdated()).isEmpty();
+        assertThat(noopCount("Review")).isEqualTo(1);
+    }
+
+    @Test
+    void detachedUpdateIsComparedWithStoredState() {
+        Review detached = reviewService.getByIdForUpdate(product.getId(), review.getId());
+        detached.setText("Sour");
+        reviewService.update(review.getId(), detached);
+
+        assertThat(reviewService.getUpdated()).containsExactly(4);
+        assertThat(reviewRepository.findById(review.getId())).get()
+                .extracting(Review::getText).isEqualTo("Sour");
+    }
+
+    private double noopCount(String resourceType) {
+        var counter = meterRegistry.find("crud.update.noop").tag("resource", resourceType).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class Services {
+
+        @Bean
+        ReviewService recordingReviewService(ReviewRepository repository, ProductRepository parentRepository) {
+            return new ReviewService(repository, parentRepository);
+        }
+    }
+
+    static class ReviewService extends NestedCrudService<Product, Review, Long, Long> {
+
+        private final List<Integer> updated = new ArrayList<>();
+
+        ReviewService(ReviewRepository repository, ProductRepository parentRepository) {
+            super(repository, parentRepository);
+        }
+
+        @Override
+        public String getResourceType() {
+            return "Review";
+        }
+
+        @Override
+        public String getParentResourceType() {
+            return "Product";
+        }
+
+        @Override
+        protected List<Review> findByParent(Product parent) {
+            return ((ReviewRepository) repository).findByProduct(parent);
+        }
+
+        @Override
+        protected Optional<Review> findByIdAndParent(Long id, Product parent) {
+            return ((ReviewRepository) repository).findByIdAndProduct(id, parent);
+        }
+
+        public List<Integer> getUpdated() {
+            return updated;
+        }
+
+        @Override
+        protected void afterUpdate(Review updatedEntity) {
+            updated.add(updatedEntity.getRating());
+        }
+    }
+}